@@ -0,0 +1,132 @@
+package com.iit.dashboard2022.analyzer;
+
+import com.iit.dashboard2022.ecu.Metric;
+import com.iit.dashboard2022.logging.LogFile;
+import com.iit.dashboard2022.logging.StatisticsMap;
+import com.iit.dashboard2022.logging.StatisticsScanner;
+import com.iit.dashboard2022.util.ByteFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Command line analyzer for sessions recorded by the dashboard.
+ * <p>
+ * Reads session directories, each holding a "time id value" statistics file and its ID map, and
+ * prints per-metric statistics, optional value histograms, the time spent in each vehicle state
+ * and a timeline of faults. Sessions are analyzed in parallel and large statistics files are split
+ * into ranges scanned in parallel, so every core is used even for a single session. Memory use does
+ * not depend on the size of the logs.
+ * <p>
+ * Usage: {@code LogAnalyzer [-t threads] [--histograms] <session or logs dir>...}
+ */
+public class LogAnalyzer {
+    private static final long RANGE_BYTES = 16 << 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean histograms = false;
+        List<File> sessions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-t":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--histograms":
+                    histograms = true;
+                    break;
+                default:
+                    sessions.addAll(findSessions(new File(args[i])));
+            }
+        }
+        if (sessions.isEmpty()) {
+            System.err.println("Usage: LogAnalyzer [-t threads] [--histograms] <session or logs dir>...");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<SessionReport> reports;
+        try {
+            reports = pool.submit(() -> sessions.parallelStream().map(LogAnalyzer::analyze).collect(Collectors.toList())).get();
+        } catch (ExecutionException e) {
+            System.err.println("Analysis failed: " + e.getCause());
+            System.exit(1);
+            return;
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long bytes = 0, samples = 0;
+        for (SessionReport report : reports) {
+            report.print(System.out, histograms);
+            bytes += report.getBytes();
+            samples += report.getSamples();
+        }
+        System.err.printf(Locale.ENGLISH, "%d sessions, %s, %d samples in %.2f s on %d threads (%s/s)%n",
+                reports.size(), ByteFormat.humanReadable(bytes), samples, seconds, threads, ByteFormat.humanReadable((long) (bytes / seconds)));
+    }
+
+    /**
+     * Finds the sessions in a directory, which is either a session itself or a logs directory holding sessions.
+     *
+     * @param dir Session or logs directory.
+     * @return Session directories, oldest first.
+     */
+    static List<File> findSessions(File dir) {
+        if (new File(dir, LogFile.STATS_FILE_NAME).isFile()) {
+            return Arrays.asList(dir);
+        }
+        File[] children = dir.listFiles(child -> new File(child, LogFile.STATS_FILE_NAME).isFile());
+        if (children == null) {
+            System.err.println("Not a session or logs directory: " + dir);
+            return new ArrayList<>();
+        }
+        Arrays.sort(children, Comparator.comparing(File::getName, Comparator.comparingLong(LogAnalyzer::sortKey)));
+        return Arrays.asList(children);
+    }
+
+    private static long sortKey(String name) {
+        try {
+            return Long.parseLong(name);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Analyzes a session, scanning the ranges of its statistics file in parallel and merging them in file order.
+     *
+     * @param dir Session directory.
+     * @return Report of the session.
+     */
+    static SessionReport analyze(File dir) {
+        File statsFile = new File(dir, LogFile.STATS_FILE_NAME);
+        Map<Integer, String> names = StatisticsMap.read(new File(dir, LogFile.STATS_MAP_FILE_NAME));
+        int stateId = StatisticsMap.idOf(names, Metric.STATE.name(), Metric.STATE.getId());
+        int faultId = StatisticsMap.idOf(names, Metric.FAULT.name(), Metric.FAULT.getId());
+        long[] bounds = StatisticsScanner.split(statsFile, RANGE_BYTES);
+        RangeAnalysis analysis = IntStream.range(0, bounds.length - 1).parallel().mapToObj(i -> {
+            RangeAnalysis range = new RangeAnalysis(stateId, faultId);
+            try {
+                range.malformed += StatisticsScanner.scan(statsFile, bounds[i], bounds[i + 1], range);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + statsFile, e);
+            }
+            return range;
+        }).reduce(RangeAnalysis::merge).orElseGet(() -> new RangeAnalysis(stateId, faultId));
+        return new SessionReport(dir, names, stateId, faultId, analysis, statsFile.length());
+    }
+}
@@ -0,0 +1,38 @@
+package com.iit.dashboard2022.analyzer;
+
+/**
+ * Running statistics of one metric over part of a session.
+ */
+class MetricAccumulator {
+    long count = 0;
+    long sum = 0;
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    long firstTime = Long.MAX_VALUE;
+    long lastTime = Long.MIN_VALUE;
+    final ValueHistogram histogram = new ValueHistogram();
+
+    void record(long time, int value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        firstTime = Math.min(firstTime, time);
+        lastTime = Math.max(lastTime, time);
+        histogram.record(value);
+    }
+
+    void merge(MetricAccumulator other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        firstTime = Math.min(firstTime, other.firstTime);
+        lastTime = Math.max(lastTime, other.lastTime);
+        histogram.merge(other.histogram);
+    }
+
+    double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+}
@@ -0,0 +1,84 @@
+package com.iit.dashboard2022.analyzer;
+
+import com.iit.dashboard2022.logging.StatisticsScanner;
+
+import java.util.Arrays;
+
+/**
+ * Analysis of one byte range of a statistics file, or of several consecutive ranges once merged.
+ * Metrics are indexed by their recorded ID.
+ */
+class RangeAnalysis implements StatisticsScanner.SampleHandler {
+    private final int stateId;
+    private final int faultId;
+    MetricAccumulator[] metrics = new MetricAccumulator[128];
+    final TransitionLog states = new TransitionLog();
+    final TransitionLog faults = new TransitionLog();
+    long samples = 0;
+    long malformed = 0;
+    long firstTime = Long.MAX_VALUE;
+    long lastTime = Long.MIN_VALUE;
+
+    /**
+     * @param stateId Recorded ID of the state metric.
+     * @param faultId Recorded ID of the fault metric.
+     */
+    RangeAnalysis(int stateId, int faultId) {
+        this.stateId = stateId;
+        this.faultId = faultId;
+    }
+
+    @Override
+    public void onSample(long time, int id, int value) {
+        if (id < 0) {
+            malformed++;
+            return;
+        }
+        if (id >= metrics.length) {
+            metrics = Arrays.copyOf(metrics, Math.max(id + 1, metrics.length * 2));
+        }
+        MetricAccumulator metric = metrics[id];
+        if (metric == null) {
+            metric = metrics[id] = new MetricAccumulator();
+        }
+        metric.record(time, value);
+        samples++;
+        firstTime = Math.min(firstTime, time);
+        lastTime = Math.max(lastTime, time);
+        if (id == stateId) {
+            states.record(time, value);
+        } else if (id == faultId) {
+            faults.record(time, value);
+        }
+    }
+
+    /**
+     * Merges the analysis of the range that follows this one.
+     *
+     * @param next Analysis of the next range.
+     * @return This analysis.
+     */
+    RangeAnalysis merge(RangeAnalysis next) {
+        if (next.metrics.length > metrics.length) {
+            metrics = Arrays.copyOf(metrics, next.metrics.length);
+        }
+        for (int id = 0; id < next.metrics.length; id++) {
+            MetricAccumulator metric = next.metrics[id];
+            if (metric == null) {
+                continue;
+            }
+            if (metrics[id] == null) {
+                metrics[id] = metric;
+            } else {
+                metrics[id].merge(metric);
+            }
+        }
+        states.append(next.states);
+        faults.append(next.faults);
+        samples += next.samples;
+        malformed += next.malformed;
+        firstTime = Math.min(firstTime, next.firstTime);
+        lastTime = Math.max(lastTime, next.lastTime);
+        return this;
+    }
+}
@@ -0,0 +1,72 @@
+package com.iit.dashboard2022.analyzer;
+
+import com.iit.dashboard2022.logging.ColumnarRowWriter;
+import com.iit.dashboard2022.logging.CsvRowWriter;
+import com.iit.dashboard2022.logging.SessionExporter;
+import com.iit.dashboard2022.util.ByteFormat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Command line exporter turning a session into time-aligned columns for analysis tools.
+ * <p>
+ * Usage: {@code SessionExport [-r rate] [-f csv|columnar] <session dir> <output file>}.
+ * The rate is in rows per second and defaults to 10. The format defaults to CSV for
+ * ".csv" files and to the columnar format of {@link ColumnarRowWriter} otherwise.
+ */
+public class SessionExport {
+
+    public static void main(String[] args) throws IOException {
+        double rate = 10;
+        String format = null;
+        File session = null;
+        File output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-r":
+                    rate = Double.parseDouble(args[++i]);
+                    break;
+                case "-f":
+                    format = args[++i];
+                    break;
+                default:
+                    if (session == null) {
+                        session = new File(args[i]);
+                    } else {
+                        output = new File(args[i]);
+                    }
+            }
+        }
+        if (session == null || output == null) {
+            System.err.println("Usage: SessionExport [-r rate] [-f csv|columnar] <session dir> <output file>");
+            System.exit(2);
+        }
+        if (format == null) {
+            format = output.getName().endsWith(".csv") ? "csv" : "columnar";
+        }
+
+        long start = System.nanoTime();
+        OutputStream out = new FileOutputStream(output);
+        SessionExporter.RowWriter writer;
+        switch (format) {
+            case "csv":
+                writer = new CsvRowWriter(out);
+                break;
+            case "columnar":
+                writer = new ColumnarRowWriter(out);
+                break;
+            default:
+                out.close();
+                System.err.println("Unknown format: " + format);
+                System.exit(2);
+                return;
+        }
+        long rows = new SessionExporter(session).rate(rate).export(writer);
+        System.err.printf(Locale.ENGLISH, "%d rows at %.1f/s to %s (%s) in %.2f s%n",
+                rows, rate, output, ByteFormat.humanReadable(output.length()), (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,157 @@
+package com.iit.dashboard2022.analyzer;
+
+import com.iit.dashboard2022.ecu.Metric;
+import com.iit.dashboard2022.ecu.State;
+import com.iit.dashboard2022.logging.LogFile;
+import com.iit.dashboard2022.util.ByteFormat;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The analysis of a whole session, printed as a plain text report.
+ */
+class SessionReport {
+    private final File dir;
+    private final Map<Integer, String> names;
+    private final int stateId;
+    private final int faultId;
+    private final RangeAnalysis analysis;
+    private final long bytes;
+
+    SessionReport(File dir, Map<Integer, String> names, int stateId, int faultId, RangeAnalysis analysis, long bytes) {
+        this.dir = dir;
+        this.names = names;
+        this.stateId = stateId;
+        this.faultId = faultId;
+        this.analysis = analysis;
+        this.bytes = bytes;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    long getSamples() {
+        return analysis.samples;
+    }
+
+    /**
+     * Gets the time spent in each state, from each state sample to the next one that differs.
+     * The last state lasts until the last sample of the session.
+     *
+     * @return Milliseconds spent by state ID.
+     */
+    Map<Integer, Long> stateDwell() {
+        Map<Integer, Long> dwell = new TreeMap<>();
+        TransitionLog states = analysis.states;
+        for (int i = 0; i < states.size(); i++) {
+            long end = i + 1 < states.size() ? states.time(i + 1) : analysis.lastTime;
+            dwell.merge(states.value(i), Math.max(0, end - states.time(i)), Long::sum);
+        }
+        return dwell;
+    }
+
+    void print(PrintStream out, boolean histograms) {
+        out.printf(Locale.ENGLISH, "== Session %s%s ==%n", dir.getName(), sessionDate());
+        if (analysis.samples == 0) {
+            out.printf(Locale.ENGLISH, "%s, no samples (%d malformed lines)%n%n", ByteFormat.humanReadable(bytes), analysis.malformed);
+            return;
+        }
+        long start = analysis.firstTime;
+        out.printf(Locale.ENGLISH, "%s, %d samples, %d malformed lines, %.1f s recorded%n",
+                ByteFormat.humanReadable(bytes), analysis.samples, analysis.malformed, (analysis.lastTime - start) / 1000.0);
+
+        out.printf(Locale.ENGLISH, "%-22s %10s %12s %12s %14s %10s %10s%n", "Metric", "Count", "Min", "Max", "Mean", "First (s)", "Last (s)");
+        for (int id = 0; id < analysis.metrics.length; id++) {
+            MetricAccumulator metric = analysis.metrics[id];
+            if (metric == null) {
+                continue;
+            }
+            out.printf(Locale.ENGLISH, "%-22s %10d %12d %12d %14.2f %10.3f %10.3f%n", nameOf(id), metric.count, metric.min, metric.max,
+                    metric.mean(), (metric.firstTime - start) / 1000.0, (metric.lastTime - start) / 1000.0);
+            if (histograms) {
+                metric.histogram.print(out, "    ");
+            }
+        }
+
+        Map<Integer, Long> dwell = stateDwell();
+        if (!dwell.isEmpty()) {
+            long total = Math.max(1, analysis.lastTime - analysis.states.time(0));
+            out.println("State dwell:");
+            for (Map.Entry<Integer, Long> entry : dwell.entrySet()) {
+                out.printf(Locale.ENGLISH, "  %-22s %10.1f s %6.1f%%%n", stateName(entry.getKey()), entry.getValue() / 1000.0, entry.getValue() * 100.0 / total);
+            }
+        }
+
+        printFaultTimeline(out, start);
+        out.println();
+    }
+
+    /**
+     * Prints every change of the fault metric and every entry into or exit from the fault state, in time order.
+     */
+    private void printFaultTimeline(PrintStream out, long start) {
+        TransitionLog faults = analysis.faults;
+        TransitionLog states = analysis.states;
+        int fault = State.FAULT.getId();
+        boolean header = false;
+        int f = 0, s = 0;
+        while (f < faults.size() || s < states.size()) {
+            boolean takeFault = s >= states.size() || (f < faults.size() && faults.time(f) <= states.time(s));
+            String line = null;
+            long time;
+            if (takeFault) {
+                time = faults.time(f);
+                int previous = f == 0 ? 0 : faults.value(f - 1);
+                if (f > 0 || faults.value(f) != 0) {
+                    line = String.format(Locale.ENGLISH, "%s %d -> %d", nameOf(faultId), previous, faults.value(f));
+                }
+                f++;
+            } else {
+                time = states.time(s);
+                int previous = s == 0 ? -1 : states.value(s - 1);
+                if (states.value(s) == fault || previous == fault) {
+                    line = String.format(Locale.ENGLISH, "State %s -> %s", previous < 0 ? "?" : stateName(previous), stateName(states.value(s)));
+                }
+                s++;
+            }
+            if (line == null) {
+                continue;
+            }
+            if (!header) {
+                out.println("Fault timeline:");
+                header = true;
+            }
+            out.printf(Locale.ENGLISH, "  %+10.3f s  %s%n", (time - start) / 1000.0, line);
+        }
+    }
+
+    private String sessionDate() {
+        try {
+            long epochSeconds = Long.parseLong(dir.getName());
+            return " (" + Instant.ofEpochSecond(epochSeconds).atZone(ZoneId.systemDefault()).format(LogFile.DATE_FORMAT) + ")";
+        } catch (NumberFormatException e) {
+            return "";
+        }
+    }
+
+    private String nameOf(int id) {
+        String name = names.get(id);
+        if (name != null) {
+            return name;
+        }
+        Metric metric = names.isEmpty() ? Metric.getMetricById(id) : null;
+        return metric != null ? metric.getName() : "ID " + id;
+    }
+
+    private static String stateName(int id) {
+        State state = State.getStateById(id);
+        return state != null ? state.getName() : "Unknown (" + id + ")";
+    }
+}
@@ -0,0 +1,49 @@
+package com.iit.dashboard2022.analyzer;
+
+import java.util.Arrays;
+
+/**
+ * The changes in value of one metric, in order, as (time, value) pairs.
+ * The first sample is always kept so a log can be joined to the one before it.
+ */
+class TransitionLog {
+    private long[] times = new long[16];
+    private int[] values = new int[16];
+    private int size = 0;
+
+    void record(long time, int value) {
+        if (size > 0 && values[size - 1] == value) {
+            return;
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        times[size] = time;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Appends a log that follows this one.
+     *
+     * @param next Log of the next part of the session.
+     */
+    void append(TransitionLog next) {
+        for (int i = 0; i < next.size; i++) {
+            record(next.times[i], next.values[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long time(int index) {
+        return times[index];
+    }
+
+    int value(int index) {
+        return values[index];
+    }
+}
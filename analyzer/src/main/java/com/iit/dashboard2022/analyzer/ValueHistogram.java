@@ -0,0 +1,98 @@
+package com.iit.dashboard2022.analyzer;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A histogram of metric values with log-linear buckets, so it needs no value range up front.
+ * <p>
+ * Values below {@link #EXACT} get a bucket each. Above that, every power of two is split into
+ * {@link #SUB_BUCKETS} linear buckets, about 12% wide. Negative values are kept separately, mirrored.
+ */
+class ValueHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT = SUB_BUCKETS * 2;
+    private static final int BUCKETS = EXACT + (32 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+    private static final int BAR_WIDTH = 40;
+
+    private final long[] positive = new long[BUCKETS];
+    private final long[] negative = new long[BUCKETS];
+
+    void record(int value) {
+        if (value >= 0) {
+            positive[index(value)]++;
+        } else {
+            negative[index(-(long) value)]++;
+        }
+    }
+
+    void merge(ValueHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            positive[i] += other.positive[i];
+            negative[i] += other.negative[i];
+        }
+    }
+
+    /**
+     * Prints every non-empty bucket from the lowest value up.
+     *
+     * @param out    Output.
+     * @param indent Prefix of every line.
+     */
+    void print(PrintStream out, String indent) {
+        long max = 1;
+        for (int i = 0; i < BUCKETS; i++) {
+            max = Math.max(max, Math.max(positive[i], negative[i]));
+        }
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (negative[i] > 0) {
+                printBucket(out, indent, -upper(i), -lower(i), negative[i], max);
+            }
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            if (positive[i] > 0) {
+                printBucket(out, indent, lower(i), upper(i), positive[i], max);
+            }
+        }
+    }
+
+    private static void printBucket(PrintStream out, String indent, long low, long high, long count, long max) {
+        String range = low == high ? String.valueOf(low) : low + ".." + high;
+        int bar = (int) Math.max(1, count * BAR_WIDTH / max);
+        out.printf(Locale.ENGLISH, "%s%25s %12d %s%n", indent, range, count, repeat('#', bar));
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static int index(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT + (magnitude - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long lower(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int magnitude = (index - EXACT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int sub = (index - EXACT) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (magnitude - SUB_BUCKET_BITS);
+    }
+
+    private static long upper(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int magnitude = (index - EXACT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        return lower(index) + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+    }
+}
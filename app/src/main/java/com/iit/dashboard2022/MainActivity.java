@@ -1,12 +1,17 @@
 package com.iit.dashboard2022;
 
+import android.app.ActivityManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.view.WindowManager;
 import androidx.appcompat.app.AppCompatActivity;
+import com.iit.dashboard2022.diagnostics.FrameTimes;
+import com.iit.dashboard2022.diagnostics.LatencyTracer;
 import com.iit.dashboard2022.ecu.ECU;
 import com.iit.dashboard2022.ecu.Metric;
+import com.iit.dashboard2022.ecu.MetricHistory;
+import com.iit.dashboard2022.ecu.MetricSubscription;
 import com.iit.dashboard2022.ecu.State;
 import com.iit.dashboard2022.logging.Log;
 import com.iit.dashboard2022.page.CarDashboard;
@@ -19,9 +24,11 @@ import com.iit.dashboard2022.ui.SidePanel;
 import com.iit.dashboard2022.ui.widget.Indicators;
 import com.iit.dashboard2022.ui.widget.SettingsButton;
 import com.iit.dashboard2022.ui.widget.WidgetUpdater;
+import com.iit.dashboard2022.util.Constants;
 import com.iit.dashboard2022.util.HawkUtil;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class MainActivity extends AppCompatActivity {
 
@@ -31,6 +38,7 @@ public final class MainActivity extends AppCompatActivity {
     SidePanel sidePanel;
     Pager mainPager;
     ECU frontECU;
+    private final List<MetricSubscription> subscriptions = new ArrayList<>();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -39,12 +47,18 @@ public final class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         HawkUtil.setWindowFlags(getWindow());
+        getWindow().getDecorView().getViewTreeObserver().addOnDrawListener(LatencyTracer::onDraw);
+        FrameTimes.attach(getWindow());
 
+        ActivityManager activityManager = (ActivityManager) getSystemService(ACTIVITY_SERVICE);
+        MetricHistory.setMemoryBudget(activityManager.getMemoryClass() * 1024L * 1024L / Constants.HISTORY_HEAP_DIVISOR);
         frontECU = new ECU(this);
 
         mainPager = new Pager(this);
         Log.setContext(this);
         Log.getInstance().loadLogs();
+        Logs logPage = (Logs) mainPager.getPage(PageManager.LOGS);
+        Log.getInstance().recoverLogs(() -> runOnUiThread(logPage::updateAll));
     }
 
     @Override
@@ -58,6 +72,7 @@ public final class MainActivity extends AppCompatActivity {
         commandPage.setECU(frontECU);
         cdPage.setECU(frontECU);
         Logs logPage = (Logs) mainPager.getPage(PageManager.LOGS);
+        logPage.setECU(frontECU);
 
         frontECU.onStateChangeEvent(state -> {
             cdPage.setState(state.name());
@@ -103,53 +118,44 @@ public final class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Sets up events for incoming statistics.
+     * Sets up events for incoming statistics, replacing the subscriptions of a previous start.
+     * <p>
+     * The dashboard setters only store values for the widget updater, so they are called from the
+     * background delivery thread. Gauges are limited to the rate the dashboard can show.
      *
      * @param dashboard The {@link CarDashboard} page.
      */
     private void setupStatistics(CarDashboard dashboard) {
-        AtomicLong lastSpeed = new AtomicLong();
+        for (MetricSubscription subscription : subscriptions) {
+            subscription.dispose();
+        }
+        subscriptions.clear();
 
         /* GAUGES */
-        Metric.SPEEDOMETER.addMessageListener(stat -> {
-            dashboard.setSpeedValue(stat.getValue());
-            dashboard.setSpeedPercentage(Math.abs(stat.getValue() - lastSpeed.get()) * 0.32f);
-            lastSpeed.set(stat.getValue());
-        });
+        MetricSubscription.Options gauge = MetricSubscription.options().on(MetricSubscription.BACKGROUND).maxRate(Constants.GAUGE_UPDATE_RATE).latestOnly();
+        subscriptions.add(Metric.SPEEDOMETER.subscribe(dashboard::setSpeedValue, gauge));
+        subscriptions.add(Metric.SPEED_DELTA_PERCENT.subscribe(v -> dashboard.setSpeedPercentage(v / 100f), gauge));
 
-        Metric.SOC.addMessageListener(stat -> dashboard.setBatteryPercentage(Math.max(Math.min(stat.getValue(), 100), 0) / 100f));
-        Metric.POWER_GAUGE.addMessageListener(stat -> { // NOTE: Actual MC power not being used
-            long avgMCVolt = (Metric.MC0_VOLTAGE.getValue() + Metric.MC1_VOLTAGE.getValue()) / 2;
-            float limit = Metric.STACK_VOLTAGE.getValue() * Metric.STACK_CURRENT.getValue();
-            int usage = (int) (avgMCVolt * Metric.BMS_DISCHARGE_LIM.getValue());
+        subscriptions.add(Metric.SOC.subscribe(v -> dashboard.setBatteryPercentage(Math.max(Math.min(v, 100), 0) / 100f), gauge));
+        subscriptions.add(Metric.POWER_LIMIT.subscribe(dashboard::setPowerLimit, gauge));
+        subscriptions.add(Metric.POWER_USAGE.subscribe(dashboard::setPowerValue, gauge));
+        subscriptions.add(Metric.POWER_PERCENT.subscribe(v -> dashboard.setPowerPercentage(v / 100f), gauge));
 
-            dashboard.setPowerLimit((int) limit);
-            if (limit == 0) {
-                limit = 1;
-            }
-
-            float percent = Math.abs(usage / limit) * 100f;
-            dashboard.setPowerPercentage(Math.max(Math.min(percent, 100), 0) / 100f);
-            dashboard.setPowerValue(usage);
-        });
+        subscriptions.add(Metric.MC0_BOARD_TEMP.subscribe(dashboard::setLeftTempValue, gauge));
+        subscriptions.add(Metric.MC0_TEMP_PERCENT.subscribe(v -> dashboard.setLeftTempPercentage(v / 100f), gauge));
+        subscriptions.add(Metric.MC1_BOARD_TEMP.subscribe(dashboard::setRightTempValue, gauge));
+        subscriptions.add(Metric.MC1_TEMP_PERCENT.subscribe(v -> dashboard.setRightTempPercentage(v / 100f), gauge));
 
         /* INDICATORS */
-
-        Metric.BEAT.addMessageListener(stat -> dashboard.setIndicator(Indicators.Indicator.Lag, false), Metric.UpdateMethod.ON_RECEIVE);
-        Metric.LAG.addMessageListener(stat -> {
+        MetricSubscription.Options indicator = MetricSubscription.options().on(MetricSubscription.BACKGROUND).latestOnly();
+        MetricSubscription.Options beat = MetricSubscription.options().onReceive().on(MetricSubscription.BACKGROUND).maxRate(Constants.BEAT_UPDATE_RATE).latestOnly();
+        subscriptions.add(Metric.BEAT.subscribe(v -> dashboard.setIndicator(Indicators.Indicator.Lag, false), beat));
+        subscriptions.add(Metric.LAG.subscribe(v -> {
             dashboard.setIndicator(Indicators.Indicator.Lag, true);
-            dashboard.setLagTime(stat.getValue());
-        });
-        Metric.FAULT.addMessageListener(stat -> dashboard.setIndicator(Indicators.Indicator.Fault, stat.getValue() > 0));
-        Metric.START_LIGHT.addMessageListener(stat -> dashboard.setStartLight(stat.getValue() == 1));
-        Metric.MC0_BOARD_TEMP.addMessageListener(stat -> {
-            dashboard.setLeftTempValue(stat.getValue());
-            dashboard.setLeftTempPercentage(stat.getValue() / 100f);
-        });
-        Metric.MC1_BOARD_TEMP.addMessageListener(stat -> {
-            dashboard.setRightTempValue(stat.getValue());
-            dashboard.setRightTempPercentage(stat.getValue() / 100f);
-        });
+            dashboard.setLagTime(v);
+        }, indicator));
+        subscriptions.add(Metric.FAULT.subscribe(v -> dashboard.setIndicator(Indicators.Indicator.Fault, v > 0), indicator));
+        subscriptions.add(Metric.START_LIGHT.subscribe(v -> dashboard.setStartLight(v == 1), indicator));
     }
 
     @Override
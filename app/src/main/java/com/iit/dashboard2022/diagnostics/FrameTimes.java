@@ -0,0 +1,34 @@
+package com.iit.dashboard2022.diagnostics;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.FrameMetrics;
+import android.view.Window;
+import lombok.Getter;
+
+/**
+ * Records how long the UI takes to produce each frame, using the platform's frame metrics.
+ * Metrics are delivered on a background thread so the UI thread does no extra work.
+ */
+public final class FrameTimes {
+    @Getter
+    private static final LatencyHistogram histogram = new LatencyHistogram();
+    private static HandlerThread thread;
+
+    private FrameTimes() {
+    }
+
+    /**
+     * Starts recording the frames of a window.
+     *
+     * @param window Window to record.
+     */
+    public static synchronized void attach(Window window) {
+        if (thread == null) {
+            thread = new HandlerThread("Frame-Metrics");
+            thread.start();
+        }
+        window.addOnFrameMetricsAvailableListener((w, metrics, dropped) -> histogram.record(metrics.getMetric(FrameMetrics.TOTAL_DURATION)),
+                new Handler(thread.getLooper()));
+    }
+}
@@ -1,91 +1,41 @@
 package com.iit.dashboard2022.ecu;
 
 import androidx.appcompat.app.AppCompatActivity;
-import com.google.common.collect.Lists;
 import com.hoho.android.usbserial.driver.UsbSerialPort;
 import com.iit.dashboard2022.logging.Log;
-import com.iit.dashboard2022.logging.LogFile;
+import com.iit.dashboard2022.telemetry.TelemetryUplink;
 import com.iit.dashboard2022.util.USBSerial;
-import lombok.extern.slf4j.Slf4j;
-
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import lombok.Getter;
+
 import java.util.function.Consumer;
 
 /**
  * A class that handles the communication and representation of the vehicle's engine control unit.
+ * Data read from the USB serial device is handed to an {@link ECUPipeline}.
  *
  * @author Isaias Rivera
  * @author Noah Husby
  */
-@Slf4j
 public class ECU {
-
     private final USBSerial usbMethod;
-    private final List<Consumer<State>> stateListener = Collections.synchronizedList(Lists.newArrayList());
-
-    private final BlockingQueue<byte[]> payloadQueue = new LinkedBlockingQueue<>();
-
+    @Getter
+    private final ECUPipeline pipeline = new ECUPipeline(() -> Log.getInstance().getActiveLogFile());
 
     public ECU(AppCompatActivity activity) {
-
-        // Handles state management
-        Metric.STATE.addMessageListener(stat -> {
-            State state = State.getStateById(stat.getValue());
-            if (state == null) {
-                return;
-            }
-            stateListener.forEach(consumer -> consumer.accept(state));
-        });
-
-        // Thread for handling message queue
-        Thread ecuThread = new Thread(() -> {
-            while (true) {
-                try {
-                    ByteBuffer buf = ByteBuffer.wrap(payloadQueue.take())
-                            .order(ByteOrder.LITTLE_ENDIAN);
-                    while (buf.hasRemaining()) {
-                        handlePayload(buf.getInt(), buf.getInt());
-                    }
-                } catch (InterruptedException e) {
-                    log.warn("ECU Thread Interrupted", e);
-                }
-            }
-        });
-        ecuThread.setDaemon(true);
-        ecuThread.setName("ECU-Thread");
-        ecuThread.start();
-        Runtime.getRuntime().addShutdownHook(new Thread(ecuThread::interrupt));
-
         // Start Serial
         usbMethod = new USBSerial(activity, 115200, UsbSerialPort.DATABITS_8, UsbSerialPort.STOPBITS_2, UsbSerialPort.PARITY_NONE);
-        usbMethod.setDataListener(payloadQueue::add);
+        usbMethod.setDataListener(pipeline::submit);
         usbMethod.autoConnect(true);
         open();
     }
 
     /**
-     * Handles the payload based upon the interpreter mode.
-     * The raw data is logged to the binary file regardless of mode.
+     * Gets the telemetry uplink fed by the pipeline.
      *
-     * @param id    ID of the metric.
-     * @param value Value of the metric.
+     * @return {@link TelemetryUplink}
      */
-    private void handlePayload(int id, int value) {
-        Metric metric = Metric.getMetricById(id);
-        if (metric == null) {
-            log.warn("Invalid metric w/ ID: {}", id);
-            return;
-        }
-        metric.update(value);
-        LogFile activeLogFile = Log.getInstance().getActiveLogFile();
-        if (activeLogFile != null) {
-            activeLogFile.logBinaryStatistics(metric);
-        }
+    public TelemetryUplink getUplink() {
+        return pipeline.getUplink();
     }
 
     /**
@@ -103,7 +53,7 @@ public class ECU {
      * @param consumer {@link Consumer<State>}
      */
     public void onStateChangeEvent(Consumer<State> consumer) {
-        this.stateListener.add(consumer);
+        pipeline.onStateChangeEvent(consumer);
     }
 
     /**
@@ -131,6 +81,7 @@ public class ECU {
      * @return True if successfully opened, false if not
      */
     public boolean open() {
+        pipeline.resetStream();
         return usbMethod.open();
     }
 
@@ -139,6 +90,7 @@ public class ECU {
      */
     public void close() {
         usbMethod.close();
+        pipeline.resetStream();
     }
 
     /**
@@ -26,6 +26,7 @@ import androidx.core.content.ContextCompat;
 import com.google.common.collect.Maps;
 import com.google.gson.JsonObject;
 import com.iit.dashboard2022.R;
+import com.iit.dashboard2022.ecu.Metric;
 import com.iit.dashboard2022.util.Constants;
 import com.iit.dashboard2022.util.HawkUtil;
 import lombok.Getter;
@@ -42,6 +43,8 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -65,7 +68,7 @@ public class Log {
     }
 
     private Map<Long, LogFile> logs = Maps.newTreeMap();
-    private LogFile activeLogFile = null;
+    private volatile LogFile activeLogFile = null;
 
     /**
      * Sets the global context for toasts.
@@ -291,20 +294,55 @@ public class Log {
                     log.warn("Invalid directory name: " + directoryName + ". Not loading log.");
                     continue;
                 }
-                tempLogs.put(date, new LogFile(date));
+                tempLogs.put(date, new LogFile(logDir, date));
             }
         }
         log.info(String.format(Locale.ENGLISH, "Loaded %d logs", tempLogs.size()));
         logs = tempLogs;
     }
 
+    /**
+     * Repairs sessions left behind by a crash, on a background thread so startup is not held up.
+     * Only the sessions loaded by {@link #loadLogs()} are checked, never the one being recorded. It is
+     * matched by creation time, as a recreated activity loads new {@link LogFile}s for the same sessions.
+     *
+     * @param onComplete Called on the recovery thread once every session has been checked.
+     */
+    public void recoverLogs(Runnable onComplete) {
+        List<LogFile> stored = new ArrayList<>(logs.values());
+        Thread thread = new Thread(() -> {
+            int recovered = 0;
+            for (LogFile logFile : stored) {
+                LogFile active = activeLogFile;
+                if (active != null && active.getEpochSeconds() == logFile.getEpochSeconds()) {
+                    continue;
+                }
+                SessionRecovery.Report report = SessionRecovery.recover(logFile.getDir());
+                if (report.isRepaired()) {
+                    log.info("Repaired log " + logFile.getDate() + ": " + report.getActions());
+                }
+                if (report.isCrashed()) {
+                    recovered++;
+                }
+                logFile.reloadSummary();
+            }
+            if (recovered > 0) {
+                toast(String.format(Locale.ENGLISH, "Recovered %d log%s", recovered, recovered == 1 ? "" : "s"), ToastLevel.WARNING);
+            }
+            onComplete.run();
+        }, "Log-Recovery");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
     /**
      * Starts recording to a new log file.
      *
      * @param statisticsMap Map of statistics names. Ex: {"1": "Steering"}
      */
     public void newLog(Map<String, String> statisticsMap) {
-        LogFile logFile = new LogFile(statisticsMap);
+        LogFile logFile = new LogFile(HawkUtil.getLogFilesDir(), statisticsMap);
         logs.put(logFile.getEpochSeconds(), logFile);
         if (activeLogFile != null) {
             log.info("Stopping log: " + activeLogFile.getDate());
@@ -323,6 +361,32 @@ public class Log {
         return activeLogFile;
     }
 
+    /**
+     * Deletes a session and forgets it.
+     *
+     * @param logFile {@link LogFile} to delete.
+     * @return True if all files are successfully deleted, false otherwise.
+     */
+    public boolean deleteLog(LogFile logFile) {
+        logs.remove(logFile.getEpochSeconds());
+        return logFile.delete();
+    }
+
+    /**
+     * Creates a query over every stored session, leaving out the one being recorded.
+     *
+     * @param metric Metric to query.
+     * @return {@link SessionQuery}
+     */
+    public SessionQuery query(Metric metric) {
+        SessionQuery query = new SessionQuery(HawkUtil.getLogFilesDir(), metric);
+        LogFile active = activeLogFile;
+        if (active != null) {
+            query.excluding(active.getEpochSeconds());
+        }
+        return query;
+    }
+
     /**
      * Gets a map of logs.
      * Key (Long) = Epoch of log creation.
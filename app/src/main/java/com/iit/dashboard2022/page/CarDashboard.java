@@ -8,7 +8,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.iit.dashboard2022.R;
 import com.iit.dashboard2022.ecu.ECU;
-import com.iit.dashboard2022.ecu.Metric;
 import com.iit.dashboard2022.ecu.State;
 import com.iit.dashboard2022.ui.UITester;
 import com.iit.dashboard2022.ui.widget.Indicators;
@@ -97,7 +96,7 @@ public class CarDashboard extends Page implements UITester.TestUI {
     }
 
     public void setSpeedValue(long mph) {
-        speedometer.setText(String.valueOf(mph)); // Auto-sized textView seems to cause a lot of allocations
+        speedometer.setValue(mph);
     }
 
     public void setIndicator(Indicators.Indicator indicator, boolean enabled) {
@@ -136,7 +135,7 @@ public class CarDashboard extends Page implements UITester.TestUI {
                 }
                 setStartLight(false);
                 if (frontECU != null) {
-                    Metric.STATE.update(-1);
+                    frontECU.getPipeline().resetState();
                 }
                 setState(State.INITIALIZING.getName());
             }, 20);
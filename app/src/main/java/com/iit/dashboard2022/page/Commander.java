@@ -20,6 +20,7 @@ import com.iit.dashboard2022.ecu.Metric;
 import com.iit.dashboard2022.logging.Log;
 import com.iit.dashboard2022.logging.ToastLevel;
 import com.iit.dashboard2022.ui.widget.LiveDataEntry;
+import com.iit.dashboard2022.ui.widget.LiveDataEntryFactory;
 import com.iit.dashboard2022.ui.widget.LiveDataSelector;
 import com.iit.dashboard2022.util.ByteSplit;
 
@@ -37,6 +38,7 @@ public class Commander extends Page {
     private TextView maxValueText, minValueText, valueActiveText, IDTextView;
     private LinearLayout valueListLayout;
     private LiveDataEntry currentSelection;
+    private LiveDataEntryFactory entryFactory;
 
     private byte ID = -1;
     private float currentValue = 0f;
@@ -57,6 +59,7 @@ public class Commander extends Page {
         IDTextView = rootView.findViewById(R.id.IDTextView);
         MaterialButton submitBtn = rootView.findViewById(R.id.submitBtn);
         valueListLayout = rootView.findViewById(R.id.valueListLayout);
+        entryFactory = new LiveDataEntryFactory(rootView.getContext());
 
         selector.setSelectionChangedListener(newSelection -> {
             currentSelection = newSelection;
@@ -117,12 +120,21 @@ public class Commander extends Page {
     }
 
     public void addEntry(String name, byte ID, float initial, float min, float max) {
-        LiveDataEntry lde = new LiveDataEntry(name, getContext());
-        lde.setEnableValue(false);
-        lde.setRawValue(initial);
-        lde.setRawStats(ID, min, max);
-        selector.addEntry(lde);
-        valueListLayout.addView(lde);
+        entryFactory.create(name).thenAccept(lde -> {
+            lde.setEnableValue(false);
+            lde.setRawValue(initial);
+            lde.setRawStats(ID, min, max);
+            selector.addEntry(lde);
+            valueListLayout.addView(lde);
+        });
+    }
+
+    @Override
+    public void onDestroyView() {
+        if (entryFactory != null) {
+            entryFactory.cancel();
+        }
+        super.onDestroyView();
     }
 
     public void setECU(ECU frontECU) {
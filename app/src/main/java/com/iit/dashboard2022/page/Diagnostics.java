@@ -0,0 +1,156 @@
+package com.iit.dashboard2022.page;
+
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.iit.dashboard2022.R;
+import com.iit.dashboard2022.diagnostics.Counter;
+import com.iit.dashboard2022.diagnostics.FrameTimes;
+import com.iit.dashboard2022.diagnostics.LatencyTracer;
+import com.iit.dashboard2022.logging.Log;
+import com.iit.dashboard2022.logging.LogFile;
+import com.iit.dashboard2022.logging.ToastLevel;
+import com.iit.dashboard2022.ui.widget.FrameBudget;
+import com.iit.dashboard2022.ui.widget.SideButton;
+import com.iit.dashboard2022.ui.widget.WidgetUpdater;
+import com.iit.dashboard2022.util.HawkUtil;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Page showing live performance diagnostics of the dashboard.
+ * <p>
+ * Pipeline {@link Counter}s are shown as totals and rates over the last refresh, next to GC
+ * statistics, widget and UI frame times and the {@link LatencyTracer} stages. Counters are only
+ * read here, once per refresh, so the page adds no work to the hot paths.
+ */
+public class Diagnostics extends Page {
+    private static final long REFRESH_MILLIS = 1000;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable refresh = this::refresh;
+    private final long[] lastSums = new long[Counter.values().length];
+    private long lastRefresh = 0;
+    private TextView countersText, latencyText;
+    private boolean visible = false;
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        View rootView = inflater.inflate(R.layout.tab_diagnostics_layout, container, false);
+        countersText = rootView.findViewById(R.id.diagnosticsCounters);
+        latencyText = rootView.findViewById(R.id.diagnosticsLatency);
+        SideButton dumpButton = rootView.findViewById(R.id.diagnosticsDumpButton);
+        SideButton resetButton = rootView.findViewById(R.id.diagnosticsResetButton);
+        dumpButton.setOnClickListener(v -> dumpToLog());
+        resetButton.setOnClickListener(v -> {
+            LatencyTracer.reset();
+            FrameTimes.getHistogram().reset();
+            WidgetUpdater.getFrameBudget().reset();
+            Counter.resetAll();
+            refresh();
+        });
+        return rootView;
+    }
+
+    @NonNull
+    @Override
+    public String getTitle() {
+        return "Diagnostics";
+    }
+
+    @Override
+    public void onPageChange(boolean enter) {
+        visible = enter;
+        handler.removeCallbacks(refresh);
+        if (enter) {
+            refresh();
+        }
+    }
+
+    private void refresh() {
+        if (countersText != null) {
+            countersText.setText(counterReport(true));
+            latencyText.setText(latencyReport());
+        }
+        if (visible) {
+            handler.postDelayed(refresh, REFRESH_MILLIS);
+        }
+    }
+
+    /**
+     * Builds the counter report, with rates since the last refresh.
+     *
+     * @param advance Whether to start the next rate interval now. Only the on-screen refresh advances
+     *                it, so a dump does not skew the rates shown next.
+     */
+    private String counterReport(boolean advance) {
+        long now = System.nanoTime();
+        double seconds = lastRefresh == 0 ? 0 : (now - lastRefresh) / 1e9;
+        if (advance) {
+            lastRefresh = now;
+        }
+
+        StringBuilder builder = new StringBuilder("Pipeline\n");
+        for (Counter counter : Counter.values()) {
+            long sum = counter.sum();
+            long delta = sum - lastSums[counter.ordinal()];
+            if (advance) {
+                lastSums[counter.ordinal()] = sum;
+            }
+            String total = "B".equals(counter.getUnit()) ? HawkUtil.humanReadableBytes(sum) : Long.toString(sum);
+            builder.append(String.format(Locale.US, "%-22s %12s  %10.1f %s/s%n", counter.getName(), total,
+                    seconds == 0 ? 0 : delta / seconds, counter.getUnit()));
+        }
+        builder.append(String.format(Locale.US, "%-22s %12d%n", "ECU queue depth",
+                Counter.ECU_CHUNKS.sum() - Counter.ECU_CHUNKS_DECODED.sum()));
+
+        builder.append("\nRuntime\n");
+        builder.append(String.format(Locale.US, "%-22s %12s  time %sms, blocking %s%n", "GC count",
+                Debug.getRuntimeStat("art.gc.gc-count"), Debug.getRuntimeStat("art.gc.gc-time"),
+                Debug.getRuntimeStat("art.gc.blocking-gc-count")));
+        Runtime runtime = Runtime.getRuntime();
+        builder.append(String.format(Locale.US, "%-22s %12s of %s%n", "Heap used",
+                HawkUtil.humanReadableBytes(runtime.totalMemory() - runtime.freeMemory()), HawkUtil.humanReadableBytes(runtime.maxMemory())));
+
+        FrameBudget budget = WidgetUpdater.getFrameBudget();
+        builder.append("\nFrames\n");
+        builder.append(String.format(Locale.US, "%-22s %12d  over budget %d, avg %.2fms (%.0f%% of %.1fms), max %.2fms%n",
+                "Widget updater", budget.getFrames(), budget.getOverBudgetFrames(), budget.getAverageWorkNanos() / 1e6,
+                budget.getBudgetUsed() * 100, budget.getFrameIntervalNanos() / 1e6, budget.getMaxWorkNanos() / 1e6));
+        builder.append(String.format(Locale.US, "%-22s %s%n", "UI frame time", FrameTimes.getHistogram().summary()));
+        return builder.toString();
+    }
+
+    private String latencyReport() {
+        return "Latency\n" + LatencyTracer.report();
+    }
+
+    private String report() {
+        return counterReport(false) + "\n" + latencyReport();
+    }
+
+    private void dumpToLog() {
+        LogFile logFile = Log.getInstance().getActiveLogFile();
+        if (logFile == null) {
+            Log.toast("No active session", ToastLevel.WARNING);
+            return;
+        }
+        logFile.appendLog("\n\n--- Diagnostics " + LocalDateTime.now() + " ---\n" + report());
+        Log.toast("Diagnostics written to session log", ToastLevel.INFO);
+    }
+
+    @Override
+    public void onDestroy() {
+        handler.removeCallbacks(refresh);
+        super.onDestroy();
+    }
+}
@@ -1,74 +1,71 @@
 package com.iit.dashboard2022.page;
 
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.LinearLayout;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.iit.dashboard2022.R;
 import com.iit.dashboard2022.ecu.Metric;
 import com.iit.dashboard2022.ui.UITester;
-import com.iit.dashboard2022.ui.widget.LiveDataEntry;
-import lombok.extern.slf4j.Slf4j;
+import com.iit.dashboard2022.ui.widget.StripChart;
 
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.atomic.AtomicBoolean;
-
-@Slf4j
+/**
+ * Page listing the live statistics of every {@link Metric}.
+ * <p>
+ * Entries are recycled by a {@link RecyclerView}, so only the rows on screen exist as bound views
+ * and only those are updated, and nothing is updated while the page is hidden.
+ */
 public class LiveData extends Page implements UITester.TestUI {
+    private static final int COLUMNS = 2;
 
-    private LinearLayout liveDataEntries1, liveDataEntries2;
-    private ViewGroup rootView;
+    private final LiveDataAdapter adapter = new LiveDataAdapter(this::toggleChart);
+    private RecyclerView entries;
+    private StripChart chart;
 
     private boolean enabled = true;
 
-    private final Map<Metric, LiveDataEntry> entries = new ConcurrentHashMap<>();
-    private boolean alt;
-
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
-        rootView = (ViewGroup) inflater.inflate(R.layout.tab_live_data_layout, container, false);
-        liveDataEntries1 = rootView.findViewById(R.id.liveDataEntries1);
-        liveDataEntries2 = rootView.findViewById(R.id.liveDataEntries2);
+        ViewGroup rootView = (ViewGroup) inflater.inflate(R.layout.tab_live_data_layout, container, false);
+        entries = rootView.findViewById(R.id.liveDataEntries);
+        entries.setLayoutManager(new GridLayoutManager(rootView.getContext(), COLUMNS));
+        entries.setHasFixedSize(true);
+        entries.setItemAnimator(null);
+        entries.setAdapter(adapter);
+        chart = rootView.findViewById(R.id.liveDataChart);
 
         UITester.addTest(this);
         return rootView;
     }
 
+    /**
+     * Shows the history of a metric above the entries, or hides it if it is already shown.
+     *
+     * @param metric {@link Metric} to chart.
+     */
     @UiThread
-    public CompletableFuture<LiveDataEntry> post(Metric metric) {
-        CompletableFuture<LiveDataEntry> future = new CompletableFuture<>();
-        AtomicBoolean temp = new AtomicBoolean(true);
-        while (temp.get()) {
-            if (getActivity() == null) {
-                continue;
-            }
-            getActivity().runOnUiThread(() -> {
-                LiveDataEntry entry = entries.get(metric);
-                if (entry == null) {
-                    entry = new LiveDataEntry(metric.getName(), rootView.getContext());
-                    entries.put(metric, entry);
-                    (alt ? liveDataEntries2 : liveDataEntries1).addView(entry);
-                    alt = !alt;
-                }
-                temp.set(false);
-                future.complete(entry);
-            });
-        }
-        return future;
+    public void toggleChart(Metric metric) {
+        boolean show = chart.getVisibility() != View.VISIBLE || chart.getMetric() != metric;
+        chart.bind(show ? metric : null);
+        chart.setVisibility(show ? View.VISIBLE : View.GONE);
     }
 
+    /**
+     * Resets the statistics of every metric and clears the entries on screen.
+     */
     public void reset() {
-        entries.values().forEach(LiveDataEntry::clear);
+        for (Metric metric : Metric.values()) {
+            metric.getStatistics().reset();
+        }
+        if (entries != null) {
+            entries.post(adapter::clearAttached);
+        }
     }
 
     @NonNull
@@ -80,25 +77,16 @@ public class LiveData extends Page implements UITester.TestUI {
     @Override
     public void onPageChange(boolean enter) {
         enabled = enter;
-        if (enter) {
-            for (Metric metric : Metric.values()) {
-                if (entries.containsKey(metric)) {
-                    continue;
-                }
-                new Handler(Looper.myLooper()).post(() -> {
-                    try {
-                        LiveDataEntry entry = post(metric).get();
-                        metric.addMessageListener(c -> entry.setValue(c.getValue()));
-                    } catch (ExecutionException | InterruptedException e) {
-                        log.error("Error while updating statistic", e);
-                    }
-                });
-            }
+        adapter.setActive(enter);
+        if (!enter && chart != null && chart.getMetric() != null) {
+            chart.bind(null);
+            chart.setVisibility(View.GONE);
         }
     }
 
     @Override
     public void onDestroy() {
+        adapter.setActive(false);
         UITester.removeTest(this);
         super.onDestroy();
     }
@@ -0,0 +1,157 @@
+package com.iit.dashboard2022.page;
+
+import android.util.TypedValue;
+import android.view.ViewGroup;
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.recyclerview.widget.RecyclerView;
+import com.iit.dashboard2022.ecu.Metric;
+import com.iit.dashboard2022.ui.widget.LiveDataEntry;
+import com.iit.dashboard2022.ui.widget.WidgetUpdater;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Adapter showing one {@link LiveDataEntry} row per {@link Metric}.
+ * <p>
+ * Only rows attached to the list are bound: a row subscribes to its metric when it scrolls into
+ * view and unsubscribes when it scrolls out, so off-screen metrics cost nothing to the widget
+ * updater. While the page is hidden no row is bound at all.
+ */
+class LiveDataAdapter extends RecyclerView.Adapter<LiveDataAdapter.Holder> {
+    private static final Metric[] METRICS = Metric.values();
+    private static final float ENTRY_MARGIN_DP = 4;
+
+    private final Consumer<Metric> wake = m -> WidgetUpdater.post();
+    private final Set<Holder> attached = new HashSet<>();
+    private final Consumer<Metric> onClick;
+    private boolean active = false;
+
+    /**
+     * @param onClick Called with the metric of a row when it is clicked.
+     */
+    LiveDataAdapter(Consumer<Metric> onClick) {
+        this.onClick = onClick;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Binds or unbinds every attached row, used when the page is entered or left.
+     *
+     * @param active Whether the page is visible.
+     */
+    @UiThread
+    void setActive(boolean active) {
+        if (this.active == active) {
+            return;
+        }
+        this.active = active;
+        for (Holder holder : attached) {
+            if (active) {
+                holder.subscribe();
+            } else {
+                holder.unsubscribe();
+            }
+        }
+    }
+
+    /**
+     * Clears the values shown by attached rows. Statistics of every metric are reset by the caller.
+     */
+    @UiThread
+    void clearAttached() {
+        for (Holder holder : attached) {
+            holder.entry.clear();
+        }
+    }
+
+    @NonNull
+    @Override
+    public Holder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LiveDataEntry entry = new LiveDataEntry(parent.getContext());
+        int margin = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, ENTRY_MARGIN_DP, parent.getResources().getDisplayMetrics());
+        RecyclerView.LayoutParams params = new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.setMargins(margin, 0, margin, 0);
+        entry.setLayoutParams(params);
+        Holder holder = new Holder(entry);
+        entry.setOnClickListener(v -> {
+            if (holder.metric != null) {
+                onClick.accept(holder.metric);
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull Holder holder, int position) {
+        boolean subscribed = holder.subscribed;
+        holder.unsubscribe();
+        holder.metric = METRICS[position];
+        holder.entry.setTitle(holder.metric.getName());
+        if (subscribed) {
+            holder.subscribe();
+        }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull Holder holder) {
+        attached.add(holder);
+        if (active) {
+            holder.subscribe();
+        }
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull Holder holder) {
+        attached.remove(holder);
+        holder.unsubscribe();
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull Holder holder) {
+        holder.unsubscribe();
+        holder.metric = null;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return METRICS[position].getId();
+    }
+
+    @Override
+    public int getItemCount() {
+        return METRICS.length;
+    }
+
+    class Holder extends RecyclerView.ViewHolder {
+        private final LiveDataEntry entry;
+        private Metric metric;
+        private boolean subscribed = false;
+
+        Holder(LiveDataEntry entry) {
+            super(entry);
+            this.entry = entry;
+        }
+
+        private void subscribe() {
+            if (subscribed || metric == null) {
+                return;
+            }
+            subscribed = true;
+            entry.bind(metric);
+            metric.addMessageListener(wake, Metric.UpdateMethod.ON_RECEIVE);
+            WidgetUpdater.post();
+        }
+
+        private void unsubscribe() {
+            if (!subscribed) {
+                return;
+            }
+            subscribed = false;
+            metric.removeMessageListener(wake);
+            entry.bind(null);
+        }
+    }
+}
@@ -11,6 +11,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.google.common.collect.Lists;
 import com.iit.dashboard2022.R;
+import com.iit.dashboard2022.ecu.ECU;
+import com.iit.dashboard2022.ecu.SessionReplay;
 import com.iit.dashboard2022.logging.Log;
 import com.iit.dashboard2022.logging.LogFile;
 import com.iit.dashboard2022.logging.ToastLevel;
@@ -28,6 +30,8 @@ public class Logs extends Page {
 
     private ViewGroup rootView;
     private LinearLayout fileEntries;
+    private ECU frontECU;
+    private SessionReplay replay;
 
     @Nullable
     @Override
@@ -64,6 +68,8 @@ public class Logs extends Page {
         for (LogFile f : files) {
             worker.post(() -> {
                 if (!fileHash.contains(f)) {
+                    // Read the summary here so the entry can show it without touching storage
+                    f.getSummary();
                     rootView.post(() -> displayListedFile(ListedFile.getInstance(rootView.getContext(), f)));
                 }
             });
@@ -71,6 +77,10 @@ public class Logs extends Page {
     }
 
     public void updateAll() {
+        if (fileEntries == null) {
+            // Entries are shown with up to date info once the page is created
+            return;
+        }
         for (int i = 0; i < fileEntries.getChildCount(); i++) {
             View view = fileEntries.getChildAt(i);
             if (view instanceof ListedFile) {
@@ -113,7 +123,7 @@ public class Logs extends Page {
     private void deleteAllEntries() {
         List<ListedFile> views = getCurrentListedFiles();
         worker.post(() -> {
-            views.removeIf(file -> file.getFile().delete());
+            views.removeIf(file -> Log.getInstance().deleteLog(file.getFile()));
             Log.toast("Done Deleting", ToastLevel.INFO);
             updateAll();
         });
@@ -134,7 +144,7 @@ public class Logs extends Page {
                 Log.toast("Deleting File", ToastLevel.INFO);
                 LogFile file = listedFile.getFile();
                 if (file != null) {
-                    if (file.delete()) {
+                    if (Log.getInstance().deleteLog(file)) {
                         Log.toast("File deleted", ToastLevel.SUCCESS);
                         removeEntry(listedFile);
                     } else {
@@ -145,7 +155,39 @@ public class Logs extends Page {
                 Log.toast("File returned null", ToastLevel.WARNING);
                 removeEntry(listedFile);
                 break;
+            case REPLAY:
+                toggleReplay(listedFile.getFile());
+                break;
+        }
+    }
+
+    public void setECU(ECU frontECU) {
+        this.frontECU = frontECU;
+    }
+
+    /**
+     * Replays a session through the ECU in real time, or stops the replay in progress.
+     * The replay updates the dashboard but is not logged or sent over telemetry.
+     *
+     * @param file Session to replay.
+     */
+    private void toggleReplay(@Nullable LogFile file) {
+        if (replay != null && replay.isRunning()) {
+            replay.stop();
+            Log.toast("Replay stopped", ToastLevel.INFO);
+            return;
+        }
+        if (file == null || frontECU == null) {
+            return;
+        }
+        if (frontECU.isOpen()) {
+            Log.toast("Disconnect the ECU before replaying", ToastLevel.WARNING);
+            return;
         }
+        replay = new SessionReplay(file, frontECU.getPipeline());
+        replay.setCompletionListener(r -> Log.toast("Replay finished", ToastLevel.INFO));
+        replay.start();
+        Log.toast("Replaying " + file.getDate() + ", hold again to stop", ToastLevel.INFO);
     }
 
     private void removeEntry(@NonNull ListedFile view) {
@@ -16,8 +16,9 @@ public class PageManager extends FragmentStateAdapter {
     public static final int LIVEDATA = 1;
     public static final int LOGS = 2;
     public static final int COMMANDER = 3;
-    public static final int ABOUT = 4;
-    private final Page[] pages = new Page[5];
+    public static final int DIAGNOSTICS = 4;
+    public static final int ABOUT = 5;
+    private final Page[] pages = new Page[6];
 
     public PageManager(@NonNull FragmentManager fragmentManager) {
         super(fragmentManager, new Lifecycle() {
@@ -41,6 +42,7 @@ public class PageManager extends FragmentStateAdapter {
         pages[LIVEDATA] = new LiveData();
         pages[LOGS] = new Logs();
         pages[COMMANDER] = new Commander();
+        pages[DIAGNOSTICS] = new Diagnostics();
         pages[ABOUT] = new About();
     }
 
@@ -75,6 +77,7 @@ public class PageManager extends FragmentStateAdapter {
             LIVEDATA,
             LOGS,
             COMMANDER,
+            DIAGNOSTICS,
             ABOUT
     })
     @interface PageIndex {
@@ -8,6 +8,7 @@ import androidx.annotation.Nullable;
 import androidx.constraintlayout.widget.ConstraintLayout;
 import com.iit.dashboard2022.R;
 import com.iit.dashboard2022.ecu.ECU;
+import com.iit.dashboard2022.ecu.TrafficGenerator;
 import com.iit.dashboard2022.logging.Log;
 import com.iit.dashboard2022.logging.ToastLevel;
 import com.iit.dashboard2022.page.CarDashboard;
@@ -15,12 +16,13 @@ import com.iit.dashboard2022.page.LiveData;
 import com.iit.dashboard2022.ui.anim.TranslationAnim;
 import com.iit.dashboard2022.ui.widget.SideSwitch;
 import com.iit.dashboard2022.ui.widget.SideToggle;
+import com.iit.dashboard2022.util.Constants;
 import com.iit.dashboard2022.util.USBSerial;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class SidePanel extends ConstraintLayout {
-    public final SideSwitch uiTestSwitch, reverseSwitch;
+    public final SideSwitch uiTestSwitch, loadTestSwitch, reverseSwitch, telemetrySwitch;
     public final SideToggle connToggle;
     public final TranslationAnim sidePanelDrawerAnim;
 
@@ -39,7 +41,9 @@ public class SidePanel extends ConstraintLayout {
         connToggle = findViewById(R.id.connToggle);
 
         uiTestSwitch = findViewById(R.id.uiTestSwitch);
+        loadTestSwitch = findViewById(R.id.loadTestSwitch);
         reverseSwitch = findViewById(R.id.reverseSwitch);
+        telemetrySwitch = findViewById(R.id.telemetrySwitch);
 
 
         uiTestSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> UITester.enable(isChecked));
@@ -89,6 +93,33 @@ public class SidePanel extends ConstraintLayout {
         reverseSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
             frontECU.issueCommand(ECU.Command.TOGGLE_REVERSE); // TODO: Use discrete ON / OFF, instead of a toggle
         });
+        telemetrySwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (isChecked) {
+                frontECU.getUplink().start(Constants.TELEMETRY_HOST, Constants.TELEMETRY_PORT);
+                Log.toast("Telemetry Started", ToastLevel.INFO, false, Gravity.END);
+            } else {
+                frontECU.getUplink().stop();
+                Log.toast("Telemetry Stopped", ToastLevel.INFO, false, Gravity.END);
+            }
+        });
+        TrafficGenerator generator = new TrafficGenerator(frontECU.getPipeline());
+        generator.setLineRateMultiple(Constants.LOAD_TEST_LINE_RATE_MULTIPLE);
+        generator.setBurst(Constants.LOAD_TEST_BURST_FACTOR, Constants.LOAD_TEST_BURST_SECONDS, Constants.LOAD_TEST_BURST_PERIOD_SECONDS);
+        loadTestSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (isChecked) {
+                if (frontECU.isOpen()) {
+                    // Generated frames would interleave with the car's
+                    buttonView.setChecked(false);
+                    Log.toast("Disconnect the ECU before load testing", ToastLevel.WARNING, false, Gravity.END);
+                    return;
+                }
+                generator.start();
+                Log.toast("Load Test Started", ToastLevel.INFO, false, Gravity.END);
+            } else if (generator.isRunning()) {
+                generator.stop();
+                Log.toast("Load Test Stopped: " + generator.summary(), ToastLevel.INFO, true, Gravity.END);
+            }
+        });
     }
 
     public void onLayoutChange() {
@@ -0,0 +1,80 @@
+package com.iit.dashboard2022.ui.widget;
+
+import lombok.Getter;
+
+/**
+ * Tracks how much of each display frame {@link WidgetUpdater} spends updating widgets.
+ * <p>
+ * The frame interval is learned from consecutive vsync timestamps, so the budget follows the
+ * panel's refresh rate. Values are written by the updater thread only and may be read from any thread.
+ */
+public class FrameBudget {
+    private static final double SMOOTHING = 0.05;
+    private static final long DEFAULT_INTERVAL_NANOS = 16_666_667;
+    private static final long MAX_INTERVAL_NANOS = 100_000_000;
+
+    private long lastFrameTimeNanos = 0;
+
+    @Getter
+    private volatile long frames = 0;
+    @Getter
+    private volatile long overBudgetFrames = 0;
+    @Getter
+    private volatile long widgetUpdates = 0;
+    @Getter
+    private volatile long dirtyWidgets = 0;
+    @Getter
+    private volatile long maxWorkNanos = 0;
+    @Getter
+    private volatile double averageWorkNanos = 0;
+    @Getter
+    private volatile double frameIntervalNanos = DEFAULT_INTERVAL_NANOS;
+
+    /**
+     * Records one updater pass.
+     *
+     * @param frameTimeNanos Vsync time of the frame, as given to the frame callback.
+     * @param workNanos      Time spent updating widgets.
+     * @param updated        Number of widgets updated.
+     * @param dirty          Number of widgets that reported a change.
+     */
+    void record(long frameTimeNanos, long workNanos, int updated, int dirty) {
+        long interval = frameTimeNanos - lastFrameTimeNanos;
+        if (lastFrameTimeNanos != 0 && interval > 0 && interval < MAX_INTERVAL_NANOS) {
+            frameIntervalNanos += (interval - frameIntervalNanos) * SMOOTHING;
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+
+        frames++;
+        widgetUpdates += updated;
+        dirtyWidgets += dirty;
+        if (workNanos > frameIntervalNanos) {
+            overBudgetFrames++;
+        }
+        if (workNanos > maxWorkNanos) {
+            maxWorkNanos = workNanos;
+        }
+        averageWorkNanos += (workNanos - averageWorkNanos) * SMOOTHING;
+    }
+
+    /**
+     * Gets the share of the frame interval used by widget updates on average.
+     *
+     * @return Fraction of the frame budget, where 1 is the whole frame.
+     */
+    public double getBudgetUsed() {
+        return averageWorkNanos / frameIntervalNanos;
+    }
+
+    /**
+     * Clears all counters.
+     */
+    public void reset() {
+        frames = 0;
+        overBudgetFrames = 0;
+        widgetUpdates = 0;
+        dirtyWidgets = 0;
+        maxWorkNanos = 0;
+        averageWorkNanos = 0;
+    }
+}
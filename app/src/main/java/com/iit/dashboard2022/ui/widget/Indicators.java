@@ -22,7 +22,11 @@ public class Indicators extends FrameLayout implements WidgetUpdater.Widget {
     private final LinearLayout indicatorLayout;
     private final String lagTimerMSFormat, lagTimerSFormat;
     private final float lagTimerLarge, LagTimerSmall;
-    private String currentLagTime = "";
+    private volatile String currentLagTime = "";
+    private String shownLagTime = null;
+    private long currentLagMillis = 0;
+    private volatile boolean dirty = true;
+    private final Runnable update = this::updateIndicators;
 
     public Indicators(Context context) {
         this(context, null);
@@ -68,28 +72,40 @@ public class Indicators extends FrameLayout implements WidgetUpdater.Widget {
         WidgetUpdater.add(this);
     }
 
+    /**
+     * Applies indicator changes to the views. Only indicators whose state differs from what is
+     * shown are touched, since visibility changes re-layout the whole widget.
+     */
     @UiThread
     private void updateIndicators() {
-        lagRadio.setChecked(Indicator.Lag.on);
-        int v = Indicator.Lag.on ? View.VISIBLE : View.GONE;
-        lagRadio.setVisibility(v);
-        lagTimer.setVisibility(v);
-        if (v == View.VISIBLE) {
+        updateIndicator(Indicator.Lag, lagRadio);
+        int lagVisibility = Indicator.Lag.on ? View.VISIBLE : View.GONE;
+        if (lagTimer.getVisibility() != lagVisibility) {
+            lagTimer.setVisibility(lagVisibility);
+        }
+        if (Indicator.Lag.on && !currentLagTime.equals(shownLagTime)) {
             updateLagTime();
         }
+        updateIndicator(Indicator.Fault, faultRadio);
+        updateIndicator(Indicator.Waiting, waitRadio);
+        updateIndicator(Indicator.Charging, chargeRadio);
+    }
 
-        faultRadio.setChecked(Indicator.Fault.on);
-        faultRadio.setVisibility(Indicator.Fault.on ? View.VISIBLE : View.GONE);
-
-        waitRadio.setChecked(Indicator.Waiting.on);
-        waitRadio.setVisibility(Indicator.Waiting.on ? View.VISIBLE : View.GONE);
-
-        chargeRadio.setChecked(Indicator.Charging.on);
-        chargeRadio.setVisibility(Indicator.Charging.on ? View.VISIBLE : View.GONE);
+    @UiThread
+    private void updateIndicator(Indicator indicator, RadioButton radio) {
+        boolean on = indicator.on;
+        int visibility = on ? View.VISIBLE : View.GONE;
+        if (radio.isChecked() != on) {
+            radio.setChecked(on);
+        }
+        if (radio.getVisibility() != visibility) {
+            radio.setVisibility(visibility);
+        }
     }
 
     @UiThread
     private void updateLagTime() {
+        shownLagTime = currentLagTime;
         if (currentLagTime.length() >= 5) {
             lagTimer.setTextSize(LagTimerSmall);
         } else {
@@ -98,27 +114,31 @@ public class Indicators extends FrameLayout implements WidgetUpdater.Widget {
         lagTimer.setText(currentLagTime);
     }
 
+    /**
+     * Turns an indicator on or off. Nothing is posted to the UI thread if the indicator is unchanged.
+     *
+     * @param indicator Indicator to set.
+     * @param enabled   Whether the indicator is on.
+     */
     public void setIndicator(Indicator indicator, boolean enabled) {
-        switch (indicator) {
-            case Lag:
-                Indicator.Lag.on = enabled;
-                break;
-            case Fault:
-                Indicator.Fault.on = enabled;
-                break;
-            case Waiting:
-                Indicator.Waiting.on = enabled;
-                break;
-            case Charging:
-                Indicator.Charging.on = enabled;
-                break;
-            default:
-                throw new IllegalStateException("Unexpected value: " + indicator);
+        if (indicator.on == enabled) {
+            return;
         }
+        indicator.on = enabled;
+        dirty = true;
         WidgetUpdater.post();
     }
 
+    /**
+     * Sets the lag time shown next to the lag indicator. Nothing is formatted or posted if the time is unchanged.
+     *
+     * @param ms Lag time in milliseconds, 0 to clear.
+     */
     public void setLagTime(long ms) {
+        if (ms == currentLagMillis) {
+            return;
+        }
+        currentLagMillis = ms;
         if (ms == 0) {
             currentLagTime = "";
         } else {
@@ -128,6 +148,7 @@ public class Indicators extends FrameLayout implements WidgetUpdater.Widget {
                 currentLagTime = String.format(Locale.US, lagTimerMSFormat, ms);
             }
         }
+        dirty = true;
         WidgetUpdater.post();
     }
 
@@ -138,8 +159,13 @@ public class Indicators extends FrameLayout implements WidgetUpdater.Widget {
     }
 
     @Override
-    public void onWidgetUpdate() {
-        post(this::updateIndicators);
+    public boolean onWidgetUpdate() {
+        if (!dirty) {
+            return false;
+        }
+        dirty = false;
+        post(update);
+        return true;
     }
 
     public enum Indicator {
@@ -148,6 +174,6 @@ public class Indicators extends FrameLayout implements WidgetUpdater.Widget {
         Waiting,
         Charging;
 
-        boolean on = false;
+        volatile boolean on = false;
     }
 }
@@ -56,6 +56,7 @@ public class ListedFile extends FrameLayout {
         listedFileMain = findViewById(R.id.listedFileMain);
 
         listedFileMain.setOnClickListener(v -> onViewPressed());
+        listedFileMain.setOnLongClickListener(v -> onViewLongPressed());
 
         uploadButton.setOnClickListener(v -> onUploadPressed());
         deleteButton.setOnClickListener(v -> onDeletePressed());
@@ -217,6 +218,16 @@ public class ListedFile extends FrameLayout {
         select();
     }
 
+    @SuppressWarnings("SameReturnValue")
+    private boolean onViewLongPressed() {
+        if (isActive()) {
+            Log.toast("Cannot replay active file", ToastLevel.WARNING);
+        } else {
+            notifyListener(ListedFileAction.REPLAY);
+        }
+        return true;
+    }
+
     private void animateVisibility(boolean visible) {
         if (visible) {
             if (animViewShow != null) {
@@ -242,6 +253,7 @@ public class ListedFile extends FrameLayout {
     public enum ListedFileAction {
         UPLOAD,
         DELETE,
+        REPLAY,
     }
 
     public interface GlobalFileListListener {
@@ -10,7 +10,10 @@ import android.view.View;
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
 import com.iit.dashboard2022.R;
+import com.iit.dashboard2022.ecu.Metric;
+import com.iit.dashboard2022.ecu.MetricStatistics;
 import com.iit.dashboard2022.util.Constants;
+import com.iit.dashboard2022.util.TextBuffer;
 
 public class LiveDataEntry extends View implements WidgetUpdater.Widget {
 
@@ -21,7 +24,7 @@ public class LiveDataEntry extends View implements WidgetUpdater.Widget {
     private final float border, radius;
     private float width = 0, height = 0;
     private String title = "Nil Title";
-    private String value = "0    H:0 L:0 A:0";
+    private final TextBuffer value = new TextBuffer(64);
     private boolean active = true;
     private boolean update = false;
     private boolean enableValue = true;
@@ -29,6 +32,15 @@ public class LiveDataEntry extends View implements WidgetUpdater.Widget {
     private double currentValue = 0;
     private double currentLow = Long.MAX_VALUE;
     private double currentHigh = Long.MIN_VALUE;
+    private Metric metric;
+    private final MetricStatistics.Snapshot snapshot = new MetricStatistics.Snapshot();
+    private volatile long renderedCount = 0;
+    private final Runnable unActivate = this::unActivate;
+    private final Runnable flash = () -> {
+        setActive(true);
+        removeCallbacks(unActivate);
+        postDelayed(unActivate, Constants.ANIM_DURATION);
+    };
 
     public LiveDataEntry(String title, Context context) {
         this(context);
@@ -61,12 +73,11 @@ public class LiveDataEntry extends View implements WidgetUpdater.Widget {
         valuePaint.setTextAlign(Paint.Align.RIGHT);
 
         titlePaint.setTypeface(Typeface.create(Typeface.DEFAULT, Typeface.BOLD));
+        value.append("0    H:0 L:0 A:0");
 
         border = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, context.getResources().getDisplayMetrics());
         radius = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 4f, context.getResources().getDisplayMetrics());
         setMinimumHeight((int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, (border + textSize) * 2, context.getResources().getDisplayMetrics()));
-
-        WidgetUpdater.add(this);
     }
 
     @UiThread
@@ -101,10 +112,23 @@ public class LiveDataEntry extends View implements WidgetUpdater.Widget {
 
     @UiThread
     public void updateValue() {
-        this.value = currentValue + "    H:" + currentHigh + " L:" + currentLow + " A:" + currentAvg;
+        synchronized (value) {
+            value.clear();
+            appendNumber(currentValue).append("    H:");
+            appendNumber(currentHigh).append(" L:");
+            appendNumber(currentLow).append(" A:");
+            appendNumber(currentAvg);
+        }
         invalidate();
     }
 
+    private TextBuffer appendNumber(double number) {
+        if (number == Math.rint(number) && Math.abs(number) < Long.MAX_VALUE) {
+            return value.append((long) number);
+        }
+        return value.append(number, 2);
+    }
+
     public void setRawValue(double value) {
         currentValue = value;
     }
@@ -119,32 +143,73 @@ public class LiveDataEntry extends View implements WidgetUpdater.Widget {
         return new double[]{ currentValue, currentAvg, currentLow, currentHigh };
     }
 
-    public void setValue(double value) {
-        currentAvg = (currentValue + value) / 2;
-        currentValue = value;
-        if (value < currentLow) {
-            currentLow = value;
-        }
-        if (value > currentHigh) {
-            currentHigh = value;
+    /**
+     * Binds the entry to a metric. The entry then renders snapshots of the metric's
+     * {@link MetricStatistics} on widget updates instead of being fed values.
+     * Binding a different metric takes its name as title and renders it on the next update.
+     *
+     * @param metric {@link Metric} to display, or null to stop rendering snapshots.
+     */
+    @UiThread
+    public void bind(@Nullable Metric metric) {
+        if (metric != null && metric != this.metric) {
+            setTitle(metric.getName());
+            renderedCount = -1;
         }
+        this.metric = metric;
+        update = true;
+    }
 
-        updateValue();
-        setActive(true);
-        postDelayed(this::unActivate, Constants.ANIM_DURATION);
+    @Nullable
+    public Metric getMetric() {
+        return metric;
+    }
+
+    private void updateSnapshot() {
+        metric.getStatistics().snapshot(snapshot, System.currentTimeMillis());
+        if (snapshot.count == renderedCount) {
+            return;
+        }
+        boolean fresh = renderedCount < 0;
+        renderedCount = snapshot.count;
+        currentValue = snapshot.last;
+        currentAvg = snapshot.mean;
+        currentLow = snapshot.min;
+        currentHigh = snapshot.max;
+        synchronized (value) {
+            value.clear()
+                    .append(snapshot.last).append("    H:")
+                    .append(snapshot.max).append(" L:")
+                    .append(snapshot.min).append(" A:")
+                    .append(snapshot.mean, 2);
+        }
+        if (!fresh) {
+            post(flash);
+        }
         update = true;
     }
 
+    /**
+     * Clears the values shown. A bound entry resets its metric's statistics and leaves rendering the
+     * empty snapshot to the widget updater, the only thread that renders snapshots.
+     */
+    @UiThread
     public void clear() {
-        currentAvg = 0;
-        currentValue = 0;
-        currentLow = 0;
-        currentHigh = 0;
-        updateValue();
-        currentLow = Long.MAX_VALUE;
-        currentHigh = Long.MIN_VALUE;
+        if (metric != null) {
+            metric.getStatistics().reset();
+            renderedCount = -1;
+        } else {
+            currentAvg = 0;
+            currentValue = 0;
+            currentLow = 0;
+            currentHigh = 0;
+            updateValue();
+            currentLow = Long.MAX_VALUE;
+            currentHigh = Long.MIN_VALUE;
+        }
         setActive(false);
-        onWidgetUpdate();
+        update = true;
+        WidgetUpdater.post();
     }
 
     @Override
@@ -160,21 +225,36 @@ public class LiveDataEntry extends View implements WidgetUpdater.Widget {
         float yPos = (height / 2) - ((titlePaint.descent() + titlePaint.ascent()) / 2);
         canvas.drawText(title, height / 4f, yPos, titlePaint);
         if (enableValue) {
-            canvas.drawText(value, width - height / 4f, yPos, valuePaint);
+            synchronized (value) {
+                canvas.drawText(value.getChars(), 0, value.length(), width - height / 4f, yPos, valuePaint);
+            }
         }
     }
 
     @Override
-    protected void finalize() throws Throwable {
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        WidgetUpdater.add(this);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
         WidgetUpdater.remove(this);
-        super.finalize();
+        removeCallbacks(flash);
+        removeCallbacks(unActivate);
+        super.onDetachedFromWindow();
     }
 
     @Override
-    public void onWidgetUpdate() {
+    public boolean onWidgetUpdate() {
+        if (metric != null) {
+            updateSnapshot();
+        }
         if (update) {
             postInvalidate();
             update = false;
+            return true;
         }
+        return false;
     }
 }
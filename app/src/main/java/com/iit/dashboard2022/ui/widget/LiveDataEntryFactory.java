@@ -0,0 +1,103 @@
+package com.iit.dashboard2022.ui.widget;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Creates {@link LiveDataEntry} views from any thread.
+ * <p>
+ * Requests are queued and a single runnable is posted to the UI thread for all requests made
+ * before it runs, so creating many entries costs one pass over the main looper. Each request's
+ * future is completed exactly once, in request order, on the UI thread.
+ */
+public class LiveDataEntryFactory {
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Queue<Request> requests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable pass = this::createPending;
+
+    public LiveDataEntryFactory(@NonNull Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Requests a new entry.
+     *
+     * @param title Title of the entry.
+     * @return Future completed on the UI thread with the entry.
+     */
+    public CompletableFuture<LiveDataEntry> create(@NonNull String title) {
+        Request request = new Request(title);
+        requests.add(request);
+        if (scheduled.compareAndSet(false, true)) {
+            handler.post(pass);
+        }
+        return request.future;
+    }
+
+    /**
+     * Requests several entries, created in the same UI thread pass.
+     *
+     * @param titles Titles of the entries.
+     * @return Future completed on the UI thread with the entries, in the order of the titles.
+     */
+    public CompletableFuture<List<LiveDataEntry>> createAll(@NonNull List<String> titles) {
+        List<CompletableFuture<LiveDataEntry>> futures = new ArrayList<>(titles.size());
+        for (String title : titles) {
+            futures.add(create(title));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<LiveDataEntry> entries = new ArrayList<>(futures.size());
+            for (CompletableFuture<LiveDataEntry> future : futures) {
+                entries.add(future.join());
+            }
+            return entries;
+        });
+    }
+
+    /**
+     * Fails every request that has not been created yet, used when the owner of the factory goes away.
+     */
+    public void cancel() {
+        handler.removeCallbacks(pass);
+        scheduled.set(false);
+        Request request;
+        while ((request = requests.poll()) != null) {
+            request.future.cancel(false);
+        }
+    }
+
+    @UiThread
+    private void createPending() {
+        // Clear the flag first so requests made while this pass runs schedule another pass
+        scheduled.set(false);
+        Request request;
+        while ((request = requests.poll()) != null) {
+            try {
+                request.future.complete(new LiveDataEntry(request.title, context));
+            } catch (RuntimeException e) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static class Request {
+        private final String title;
+        private final CompletableFuture<LiveDataEntry> future = new CompletableFuture<>();
+
+        private Request(String title) {
+            this.title = title;
+        }
+    }
+}
@@ -8,11 +8,15 @@ import android.util.AttributeSet;
 import android.view.View;
 import androidx.annotation.Nullable;
 import com.iit.dashboard2022.R;
+import com.iit.dashboard2022.util.TextBuffer;
 
 public class SpeedText extends View implements WidgetUpdater.Widget {
     private static final Paint paint = new Paint();
-    private String text = "0";
+    private final TextBuffer text = new TextBuffer(8);
+    private volatile long value = 0;
+    private long shownValue = 0;
     private int width = 0, height = 0;
+    private volatile boolean dirty = false;
 
     public SpeedText(Context context) {
         this(context, null);
@@ -29,11 +33,15 @@ public class SpeedText extends View implements WidgetUpdater.Widget {
         paint.setTextAlign(Paint.Align.CENTER);
         paint.setAntiAlias(true);
 
+        text.append(shownValue);
         WidgetUpdater.add(this);
     }
 
-    public void setText(String text) {
-        this.text = text;
+    public void setValue(long value) {
+        if (this.value != value) {
+            this.value = value;
+            dirty = true;
+        }
     }
 
     @Override
@@ -45,8 +53,13 @@ public class SpeedText extends View implements WidgetUpdater.Widget {
 
     @Override
     protected void onDraw(Canvas canvas) {
+        long value = this.value;
+        if (value != shownValue) {
+            shownValue = value;
+            text.clear().append(value);
+        }
         float yPos = (height / 2f) - ((paint.descent() + paint.ascent()) / 2);
-        canvas.drawText(text, width / 2f, yPos, paint);
+        canvas.drawText(text.getChars(), 0, text.length(), width / 2f, yPos, paint);
     }
 
     @Override
@@ -56,7 +69,12 @@ public class SpeedText extends View implements WidgetUpdater.Widget {
     }
 
     @Override
-    public void onWidgetUpdate() {
+    public boolean onWidgetUpdate() {
+        if (!dirty) {
+            return false;
+        }
+        dirty = false;
         postInvalidate();
+        return true;
     }
 }
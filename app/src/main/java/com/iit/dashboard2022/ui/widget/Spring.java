@@ -0,0 +1,80 @@
+package com.iit.dashboard2022.ui.widget;
+
+/**
+ * A critically damped spring used to animate widget values.
+ * <p>
+ * The spring is integrated analytically from the real time between frames, so it moves at the
+ * same speed whatever the frame rate and stays stable when frames are late. Its stiffness is
+ * derived from a latency budget: starting at rest, the value has covered all but
+ * {@link #SETTLE_EPSILON} of the change once the budget has elapsed. Values are expected
+ * to be fractions of a full scale, as gauges use.
+ * <p>
+ * The target may be set from any thread; stepping must happen on a single thread.
+ */
+public class Spring {
+    /**
+     * Remaining distance at which the spring snaps to its target.
+     */
+    public static final float SETTLE_EPSILON = 0.001f;
+    /**
+     * Solution of (1 + x) e^-x = {@link #SETTLE_EPSILON}, the settle time in units of 1 / omega.
+     */
+    private static final float SETTLE_OMEGA_TIME = 9.233f;
+
+    private volatile float target;
+    private float value;
+    private float velocity = 0;
+    private float omega;
+
+    public Spring(float value, long latencyBudgetMillis) {
+        this.value = value;
+        this.target = value;
+        setLatencyBudget(latencyBudgetMillis);
+    }
+
+    /**
+     * Sets the time the spring may take to settle after a change of target.
+     *
+     * @param millis Latency budget in milliseconds.
+     */
+    public void setLatencyBudget(long millis) {
+        omega = SETTLE_OMEGA_TIME * 1000f / Math.max(1, millis);
+    }
+
+    public void setTarget(float target) {
+        this.target = target;
+    }
+
+    public float getTarget() {
+        return target;
+    }
+
+    public float getValue() {
+        return value;
+    }
+
+    /**
+     * Advances the spring.
+     *
+     * @param dt Seconds since the previous step.
+     * @return True if the value changed.
+     */
+    public boolean step(float dt) {
+        float target = this.target;
+        if (value == target && velocity == 0) {
+            return false;
+        }
+        float x = value - target;
+        float decay = (float) Math.exp(-omega * dt);
+        float c = velocity + omega * x;
+        float nextX = (x + c * dt) * decay;
+        velocity = (velocity - omega * c * dt) * decay;
+        if (Math.abs(nextX) < SETTLE_EPSILON && Math.abs(velocity) < SETTLE_EPSILON * omega) {
+            value = target;
+            velocity = 0;
+        } else {
+            value = target + nextX;
+        }
+        return true;
+    }
+}
@@ -16,6 +16,7 @@ public class StartLight extends FrameLayout implements WidgetUpdater.Widget {
     private final ColorStateList colorOn, colorOff;
     private ColorStateList current;
     private CharSequence state;
+    private volatile boolean dirty = false;
 
     public StartLight(Context context) {
         this(context, null);
@@ -39,13 +40,20 @@ public class StartLight extends FrameLayout implements WidgetUpdater.Widget {
     }
 
     public void setLight(boolean isOn) {
-        current = isOn ? colorOn : colorOff;
-        WidgetUpdater.post();
+        ColorStateList next = isOn ? colorOn : colorOff;
+        if (current != next) {
+            current = next;
+            dirty = true;
+            WidgetUpdater.post();
+        }
     }
 
     public void setState(CharSequence state) {
-        this.state = state;
-        WidgetUpdater.post();
+        if (this.state == null || !this.state.equals(state)) {
+            this.state = state;
+            dirty = true;
+            WidgetUpdater.post();
+        }
     }
 
     @Override
@@ -55,10 +63,15 @@ public class StartLight extends FrameLayout implements WidgetUpdater.Widget {
     }
 
     @Override
-    public void onWidgetUpdate() {
+    public boolean onWidgetUpdate() {
+        if (!dirty) {
+            return false;
+        }
+        dirty = false;
         post(() -> {
             startLight.setButtonTintList(current);
             currentState.setText(state);
         });
+        return true;
     }
 }
@@ -0,0 +1,266 @@
+package com.iit.dashboard2022.ui.widget;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+import androidx.annotation.Nullable;
+import com.iit.dashboard2022.R;
+import com.iit.dashboard2022.ecu.Metric;
+import com.iit.dashboard2022.ecu.MetricHistory;
+import com.iit.dashboard2022.ecu.MetricStatistics;
+import com.iit.dashboard2022.util.TextBuffer;
+
+/**
+ * Scrolling chart of the last few seconds of a {@link Metric}, read from its {@link MetricHistory}.
+ * <p>
+ * Samples are decimated to one column per pixel, keeping the min, max, first and last value of each
+ * column so spikes survive. The columns are turned into line segments on the widget update thread;
+ * every buffer is allocated once per size so nothing is allocated per frame.
+ * <p>
+ * The title line also shows the spread of the metric from its {@link MetricStatistics}: standard
+ * deviation, windowed mean, rate of change and percentiles, which do not fit in a live data row.
+ */
+public class StripChart extends View implements WidgetUpdater.Widget {
+    private static final int DEFAULT_WINDOW_SECONDS = 10;
+
+    private final Paint bgPaint = new Paint();
+    private final Paint linePaint = new Paint();
+    private final Paint titlePaint = new Paint();
+    private final float border, radius;
+    private final Object lock = new Object();
+
+    private long windowMillis;
+    private Metric metric;
+    private final TextBuffer title = new TextBuffer(128);
+    private final MetricStatistics.Snapshot snapshot = new MetricStatistics.Snapshot();
+    private long renderedStatistics = -1;
+    private int width = 0, height = 0;
+
+    private long[] times = new long[0];
+    private int[] values = new int[0];
+    private float[] colMin = new float[0];
+    private float[] colMax = new float[0];
+    private float[] colFirst = new float[0];
+    private float[] colLast = new float[0];
+    private boolean[] colUsed = new boolean[0];
+    private float[] vertices = new float[0];
+    private int vertexCount = 0;
+    private long renderedTotal = -1;
+    private long renderedWindowEnd = 0;
+
+    public StripChart(Context context) {
+        this(context, null);
+    }
+
+    public StripChart(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public StripChart(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        final TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.StripChart);
+        windowMillis = a.getInt(R.styleable.StripChart_windowSeconds, DEFAULT_WINDOW_SECONDS) * 1000L;
+        int lineColor = a.getColor(R.styleable.StripChart_android_color, context.getColor(R.color.foreground));
+        a.recycle();
+
+        bgPaint.setColor(context.getColor(R.color.midground));
+
+        linePaint.setColor(lineColor);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, context.getResources().getDisplayMetrics()));
+        linePaint.setAntiAlias(true);
+
+        titlePaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 10, context.getResources().getDisplayMetrics()));
+        titlePaint.setColor(context.getColor(R.color.foregroundSecondary));
+        titlePaint.setAntiAlias(true);
+
+        border = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, context.getResources().getDisplayMetrics());
+        radius = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 4f, context.getResources().getDisplayMetrics());
+    }
+
+    /**
+     * Sets the metric to chart, or null to clear the chart.
+     *
+     * @param metric {@link Metric} to chart.
+     */
+    public void bind(@Nullable Metric metric) {
+        synchronized (lock) {
+            this.metric = metric;
+            title.clear();
+            if (metric != null) {
+                title.append(metric.getName());
+            }
+            vertexCount = 0;
+            renderedTotal = -1;
+            renderedStatistics = -1;
+        }
+        WidgetUpdater.post();
+        postInvalidate();
+    }
+
+    @Nullable
+    public Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Sets how many seconds of history are visible.
+     *
+     * @param seconds Width of the chart in seconds.
+     */
+    public void setWindowSeconds(int seconds) {
+        windowMillis = Math.max(1, seconds) * 1000L;
+        renderedTotal = -1;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int ow, int oh) {
+        synchronized (lock) {
+            width = w;
+            height = h;
+            colMin = new float[w];
+            colMax = new float[w];
+            colFirst = new float[w];
+            colLast = new float[w];
+            colUsed = new boolean[w];
+            vertices = new float[w * 8];
+            vertexCount = 0;
+            renderedTotal = -1;
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        canvas.drawRoundRect(border, border, width - border, height - border, radius, radius, bgPaint);
+        synchronized (lock) {
+            if (vertexCount > 0) {
+                canvas.drawLines(vertices, 0, vertexCount, linePaint);
+            }
+            canvas.drawText(title.getChars(), 0, title.length(), radius * 2, radius * 2 - titlePaint.ascent(), titlePaint);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        WidgetUpdater.add(this);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        WidgetUpdater.remove(this);
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    public boolean onWidgetUpdate() {
+        Metric metric = this.metric;
+        if (metric == null || width < 2 || height < 2) {
+            return false;
+        }
+        MetricHistory history = metric.getHistory();
+        long total = history.getTotalCount();
+        long now = System.currentTimeMillis();
+        if (total == renderedTotal && (total == 0 || now - renderedWindowEnd < windowMillis / width)) {
+            return false;
+        }
+        int capacity = MetricHistory.getCapacity();
+        if (times.length != capacity) {
+            times = new long[capacity];
+            values = new int[capacity];
+        }
+        long windowStart = now - windowMillis;
+        int count = history.snapshot(windowStart, times, values);
+        if (count == 0 && vertexCount == 0) {
+            renderedTotal = total;
+            return false;
+        }
+
+        metric.getStatistics().snapshot(snapshot, now);
+        synchronized (lock) {
+            renderedTotal = total;
+            renderedWindowEnd = now;
+            decimate(count, windowStart);
+            if (snapshot.count != renderedStatistics) {
+                renderedStatistics = snapshot.count;
+                updateTitle(metric);
+            }
+        }
+        postInvalidate();
+        return true;
+    }
+
+    private void updateTitle(Metric metric) {
+        title.clear().append(metric.getName());
+        if (snapshot.count == 0) {
+            return;
+        }
+        title.append("   \u03c3:").append(snapshot.getStandardDeviation(), 2)
+                .append(" W:").append(snapshot.windowMean, 2)
+                .append(" \u0394:").append(snapshot.rate, 1).append("/s")
+                .append("   P50:").append(snapshot.p50, 1)
+                .append(" P95:").append(snapshot.p95, 1)
+                .append(" P99:").append(snapshot.p99, 1);
+    }
+
+    private void decimate(int count, long windowStart) {
+        vertexCount = 0;
+        if (count == 0) {
+            return;
+        }
+        int low = Integer.MAX_VALUE;
+        int high = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            low = Math.min(low, values[i]);
+            high = Math.max(high, values[i]);
+        }
+        float top = radius;
+        float bottom = height - radius;
+        float scale = high == low ? 0 : (bottom - top) / ((float) high - low);
+        float mid = (top + bottom) / 2;
+
+        for (int c = 0; c < width; c++) {
+            colUsed[c] = false;
+        }
+        float columnsPerMilli = (width - 1) / (float) windowMillis;
+        for (int i = 0; i < count; i++) {
+            int c = Math.min(width - 1, Math.max(0, (int) ((times[i] - windowStart) * columnsPerMilli)));
+            float y = scale == 0 ? mid : bottom - (values[i] - (float) low) * scale;
+            if (!colUsed[c]) {
+                colUsed[c] = true;
+                colMin[c] = y;
+                colMax[c] = y;
+                colFirst[c] = y;
+            } else {
+                colMin[c] = Math.min(colMin[c], y);
+                colMax[c] = Math.max(colMax[c], y);
+            }
+            colLast[c] = y;
+        }
+
+        int previous = -1;
+        for (int c = 0; c < width; c++) {
+            if (!colUsed[c]) {
+                continue;
+            }
+            if (previous >= 0) {
+                vertices[vertexCount++] = previous;
+                vertices[vertexCount++] = colLast[previous];
+                vertices[vertexCount++] = c;
+                vertices[vertexCount++] = colFirst[c];
+            }
+            if (colMin[c] != colMax[c]) {
+                vertices[vertexCount++] = c;
+                vertices[vertexCount++] = colMin[c];
+                vertices[vertexCount++] = c;
+                vertices[vertexCount++] = colMax[c];
+            }
+            previous = c;
+        }
+    }
+}
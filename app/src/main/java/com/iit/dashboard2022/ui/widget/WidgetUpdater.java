@@ -1,93 +1,158 @@
 package com.iit.dashboard2022.ui.widget;
 
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.SystemClock;
-import com.google.common.collect.Sets;
+import android.view.Choreographer;
+import com.iit.dashboard2022.diagnostics.LatencyTracer;
 import com.iit.dashboard2022.util.Constants;
 
-import java.util.HashSet;
-import java.util.Set;
-
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drives {@link Widget} animations in step with the display.
+ * <p>
+ * Updates run on a dedicated looper thread from {@link Choreographer} frame callbacks, so every
+ * widget is updated once per vsync in a single pass. After {@link #post()} stops being called the
+ * updater keeps running for at least {@link #SETTLE_TIME_MS} and until no widget reports a change,
+ * then stops requesting frames until the next post. Time spent per frame is tracked by {@link FrameBudget}.
+ */
 public class WidgetUpdater {
+    private static final long SETTLE_TIME_MS = Constants.ANIM_DURATION;
+    private static final long MAX_FRAME_GAP_NANOS = 1_000_000_000;
     private static final WidgetUpdateManager widgetUpdateManager = new WidgetUpdateManager();
 
     public static void start() {
-        if (!widgetUpdateManager.isAlive()) {
-            widgetUpdateManager.start();
-            post();
-        }
+        widgetUpdateManager.start();
     }
 
     public static void add(Widget widget) {
-        WidgetUpdateManager.WIDGETS.add(widget);
+        widgetUpdateManager.add(widget);
     }
 
     public static void remove(Widget widget) {
-        WidgetUpdateManager.WIDGETS.remove(widget);
+        widgetUpdateManager.remove(widget);
     }
 
     public static void post() {
         widgetUpdateManager.post();
     }
 
-    public static float DV(float x) {
-        return (float) Math.max((0.5 - (Math.pow(x, 2)) / 8), 0.01f);
+    public static FrameBudget getFrameBudget() {
+        return widgetUpdateManager.frameBudget;
     }
 
-    public static float truncate(float val) {
-        return ((int) Math.ceil(val * 1000)) / 1000.0f;
+    /**
+     * Gets the time since the previous frame, for widgets to advance animations by.
+     * Only meaningful from within {@link Widget#onWidgetUpdate()}.
+     *
+     * @return Seconds since the previous frame.
+     */
+    public static float getFrameDelta() {
+        return widgetUpdateManager.frameDelta;
     }
 
     public interface Widget {
-        void onWidgetUpdate();
+        /**
+         * Advances the widget by one frame.
+         * <p>
+         * Widgets track their own dirty state and must only invalidate, or touch views that
+         * trigger a layout, when what they display has changed since the previous update.
+         *
+         * @return True if the widget changed this frame and was invalidated.
+         */
+        boolean onWidgetUpdate();
     }
 
-    private static class WidgetUpdateManager extends Thread {
-        protected static final Set<Widget> WIDGETS = new HashSet<>();
-        private static final long UPDATE_TIME_MS = Constants.ANIM_UPDATE_MILLIS;
-        private static final long SETTLE_TIME_MS = UPDATE_TIME_MS * 10;
-        private static long settleTime = SETTLE_TIME_MS;
-        private static long lastTime = 0;
-        private static boolean running = false;
+    private static class WidgetUpdateManager implements Choreographer.FrameCallback {
+        private final Object lock = new Object();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final FrameBudget frameBudget = new FrameBudget();
+        private volatile Widget[] widgets = new Widget[0];
+        private volatile long settleTime = 0;
+        private volatile Choreographer choreographer;
+        private long lastFrameTimeNanos = 0;
+        private float frameDelta = 0;
+        private HandlerThread thread;
+
+        private void start() {
+            synchronized (lock) {
+                if (thread != null) {
+                    return;
+                }
+                thread = new HandlerThread("Widget-Updater");
+                thread.start();
+                new Handler(thread.getLooper()).post(() -> {
+                    choreographer = Choreographer.getInstance();
+                    post();
+                });
+            }
+        }
 
-        @Override
-        public void run() {
-            synchronized (this) {
-                while (true) {
-                    try {
-                        if (settleTime >= SETTLE_TIME_MS) {
-                            running = false;
-                            wait();
-                        }
-                        if (enoughMinTimePassed()) {
-                            for (Widget sg : Sets.newHashSet(WIDGETS)) {
-                                sg.onWidgetUpdate();
-                                wait(1);
-                            }
-                        }
-                    } catch (InterruptedException e) {
+        private void add(Widget widget) {
+            synchronized (lock) {
+                Widget[] current = widgets;
+                Widget[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = widget;
+                widgets = next;
+            }
+        }
+
+        private void remove(Widget widget) {
+            synchronized (lock) {
+                Widget[] current = widgets;
+                for (int i = 0; i < current.length; i++) {
+                    if (current[i] == widget) {
+                        Widget[] next = new Widget[current.length - 1];
+                        System.arraycopy(current, 0, next, 0, i);
+                        System.arraycopy(current, i + 1, next, i, next.length - i);
+                        widgets = next;
                         return;
                     }
                 }
             }
         }
 
-        private boolean enoughMinTimePassed() {
-            if (lastTime + UPDATE_TIME_MS > SystemClock.uptimeMillis()) {
-                return false;
+        private void post() {
+            settleTime = SystemClock.uptimeMillis() + SETTLE_TIME_MS;
+            Choreographer choreographer = this.choreographer;
+            if (choreographer != null && scheduled.compareAndSet(false, true)) {
+                choreographer.postFrameCallback(this);
             }
-
-            lastTime = SystemClock.uptimeMillis();
-
-            settleTime += UPDATE_TIME_MS;
-            return settleTime < SETTLE_TIME_MS;
         }
 
-        private void post() {
-            settleTime = 0;
-            if (!running) {
-                running = true;
-                synchronized (this) {
-                    notify();
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            long start = System.nanoTime();
+            long gap = frameTimeNanos - lastFrameTimeNanos;
+            // Coming out of idle, advance by one nominal frame rather than the whole idle time.
+            // Late frames while running advance by the real gap so animations catch up.
+            if (lastFrameTimeNanos == 0 || gap <= 0) {
+                gap = (long) frameBudget.getFrameIntervalNanos();
+            }
+            gap = Math.min(gap, MAX_FRAME_GAP_NANOS);
+            lastFrameTimeNanos = frameTimeNanos;
+            frameDelta = gap / 1e9f;
+
+            Widget[] widgets = this.widgets;
+            int dirty = 0;
+            for (Widget widget : widgets) {
+                if (widget.onWidgetUpdate()) {
+                    dirty++;
+                }
+            }
+            frameBudget.record(frameTimeNanos, System.nanoTime() - start, widgets.length, dirty);
+            LatencyTracer.onWidgetFrame(dirty > 0);
+
+            if (dirty > 0 || SystemClock.uptimeMillis() < settleTime) {
+                choreographer.postFrameCallback(this);
+            } else {
+                lastFrameTimeNanos = 0;
+                scheduled.set(false);
+                // A post may have landed after the settle check but before the flag was cleared
+                if (SystemClock.uptimeMillis() < settleTime && scheduled.compareAndSet(false, true)) {
+                    choreographer.postFrameCallback(this);
                 }
             }
         }
@@ -0,0 +1,161 @@
+package com.iit.dashboard2022.ui.widget.gauge;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Precomputed bar layout of a {@link SpeedGauge}.
+ * <p>
+ * Layouts depend only on the gauge width, the display's scaled density and the minimum bar width,
+ * so they are cached by those and shared between gauges and across configuration changes.
+ * Bars are stored as primitive arrays; colors are stored as band indexes so gauges with
+ * different color schemes can share a layout.
+ */
+final class BarGeometry {
+    static final int BAND_LOW = 0;
+    static final int BAND_MID = 1;
+    static final int BAND_HIGH = 2;
+    private static final int CACHE_SIZE = 8;
+
+    private static final Map<Key, BarGeometry> cache = new LinkedHashMap<Key, BarGeometry>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, BarGeometry> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Left edge of each bar.
+     */
+    final float[] left;
+    /**
+     * Right edge of each bar.
+     */
+    final float[] right;
+    /**
+     * Color band of each bar, one of {@link #BAND_LOW}, {@link #BAND_MID} or {@link #BAND_HIGH}.
+     */
+    final byte[] band;
+    /**
+     * Width of the filled area for each step of the gauge, step 0 being empty.
+     */
+    final int[] maskWidths;
+
+    private BarGeometry(int bars) {
+        left = new float[bars];
+        right = new float[bars];
+        band = new byte[bars];
+        maskWidths = new int[bars + 1];
+    }
+
+    /**
+     * Gets the bar layout for a gauge, computing it if it is not cached.
+     *
+     * @param width          Width of the gauge in pixels.
+     * @param scaledDensity  Scaled density of the display.
+     * @param minWidth       Minimum bar width in pixels.
+     * @return The shared layout.
+     */
+    static BarGeometry get(int width, float scaledDensity, float minWidth) {
+        Key key = new Key(width, scaledDensity, minWidth);
+        synchronized (cache) {
+            BarGeometry geometry = cache.get(key);
+            if (geometry == null) {
+                geometry = new BarGeometry(layout(width, scaledDensity, minWidth, null));
+                layout(width, scaledDensity, minWidth, geometry);
+                cache.put(key, geometry);
+            }
+            return geometry;
+        }
+    }
+
+    /**
+     * Number of steps the gauge can display, including empty.
+     */
+    int steps() {
+        return maskWidths.length;
+    }
+
+    /**
+     * Walks the bar layout, filling the geometry if one is given.
+     *
+     * @return Number of bars.
+     */
+    private static int layout(int x, float sd, float minWidth, BarGeometry out) {
+        int count = (int) (((x) / 8f));
+        float incX = x / (float) count;
+
+        boolean draw = true;
+        int xPos = 0;
+        float varX = incX * sd;
+        int bars = 0;
+
+        while (xPos <= x) {
+            if (draw) {
+                if (out != null) {
+                    out.left[bars] = xPos;
+                    out.right[bars] = xPos + incX + varX;
+                    out.band[bars] = band((xPos + incX) / x);
+                    out.maskWidths[bars + 1] = (int) ((int) (xPos + incX + varX) + minWidth / 4);
+                }
+                bars++;
+                varX -= incX / 8;
+                if (varX < minWidth - incX) {
+                    varX = minWidth - incX;
+                }
+            } else {
+                xPos += varX;
+            }
+
+            xPos += incX;
+            draw = !draw;
+        }
+
+        if (out != null) {
+            out.maskWidths[0] = 0;
+            // The last step always fills the whole gauge
+            out.maskWidths[bars] = (int) (x + minWidth / 4);
+        }
+        return bars;
+    }
+
+    private static byte band(float percent) {
+        if (percent > 2 / 3f) {
+            return BAND_HIGH;
+        } else if (percent > 1 / 3f) {
+            return BAND_MID;
+        } else {
+            return BAND_LOW;
+        }
+    }
+
+    private static final class Key {
+        private final int width;
+        private final float scaledDensity;
+        private final float minWidth;
+
+        Key(int width, float scaledDensity, float minWidth) {
+            this.width = width;
+            this.scaledDensity = scaledDensity;
+            this.minWidth = minWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return width == key.width && scaledDensity == key.scaledDensity && minWidth == key.minWidth;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(width, scaledDensity, minWidth);
+        }
+    }
+}
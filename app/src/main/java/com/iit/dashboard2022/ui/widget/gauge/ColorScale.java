@@ -0,0 +1,61 @@
+package com.iit.dashboard2022.ui.widget.gauge;
+
+/**
+ * Interpolates ARGB colors evenly spaced over the range 0 to 1.
+ * Works on packed color ints directly, so it has no dependency on the Android framework.
+ */
+public final class ColorScale {
+    private final int[] colors;
+
+    /**
+     * @param colors Colors from 0 to 1, at least one.
+     */
+    public ColorScale(int... colors) {
+        if (colors.length == 0) {
+            throw new IllegalArgumentException("A color scale needs at least one color");
+        }
+        this.colors = colors.clone();
+    }
+
+    /**
+     * Gets the color at a point of the scale.
+     * A fully transparent color blends only in alpha, taking the color of its neighbour.
+     *
+     * @param ratio Point of the scale, clamped to 0 to 1.
+     * @return Packed ARGB color.
+     */
+    public int getColor(float ratio) {
+        if (ratio <= 0 || colors.length == 1) {
+            return colors[0];
+        }
+        if (ratio >= 1) {
+            return colors[colors.length - 1];
+        }
+
+        // Calc the sector
+        float position = ((colors.length - 1) * ratio);
+        int sector = (int) position;
+        ratio = position - sector;
+
+        // Get the color to mix
+        int sColor = colors[sector];
+        int eColor = colors[sector + 1];
+
+        // Manage the transparent case
+        if (sColor == 0) {
+            sColor = eColor & 0x00FFFFFF;
+        }
+        if (eColor == 0) {
+            eColor = sColor & 0x00FFFFFF;
+        }
+
+        // Calculate the result color
+        int alpha = (int) ((eColor >>> 24) * ratio + (sColor >>> 24) * (1 - ratio));
+        int red = (int) ((eColor >> 16 & 0xFF) * ratio + (sColor >> 16 & 0xFF) * (1 - ratio));
+        int green = (int) ((eColor >> 8 & 0xFF) * ratio + (sColor >> 8 & 0xFF) * (1 - ratio));
+        int blue = (int) ((eColor & 0xFF) * ratio + (sColor & 0xFF) * (1 - ratio));
+
+        // Get the color
+        return alpha << 24 | red << 16 | green << 8 | blue;
+    }
+}
@@ -12,25 +12,30 @@ import android.graphics.Typeface;
 import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.View;
-import androidx.annotation.ColorInt;
 import androidx.annotation.Nullable;
 import androidx.annotation.StyleableRes;
 import com.iit.dashboard2022.R;
+import com.iit.dashboard2022.ui.widget.Spring;
 import com.iit.dashboard2022.ui.widget.WidgetUpdater;
+import com.iit.dashboard2022.util.Constants;
+import com.iit.dashboard2022.util.TextBuffer;
 
 public class LinearGauge extends View implements WidgetUpdater.Widget {
     private final Paint paint, bgPaint, topTextPaint, bottomTextPaint, valueTextPaint;
     private final Rect mainBar;
     private final String topText;
     private final boolean flipped, vertical;
-    private final int[] colors;
+    private final ColorScale colorScale;
     private RectF dst;
     private String bottomText;
     private String unit;
-    private String output;
-    private int value = 0;
+    private final TextBuffer output = new TextBuffer(16);
+    private volatile int value = 0;
+    private int shownValue = 0;
+    private volatile boolean valueChanged = true;
 
-    private float altX, percent = 0, oldPercent = 0;
+    private final Spring percentSpring = new Spring(0, Constants.GAUGE_LATENCY_MILLIS);
+    private float altX, oldPercent = 0;
     private int width = 0, height = 0;
     private int textOffset = 0, topTextY = 0;
 
@@ -84,20 +89,16 @@ public class LinearGauge extends View implements WidgetUpdater.Widget {
         }
 
         if (colorMid != 0) {
-            colors = new int[]{
-                    colorLow, colorMid, colorHigh
-            };
+            colorScale = new ColorScale(colorLow, colorMid, colorHigh);
         } else {
-            colors = new int[]{
-                    colorLow, colorHigh
-            };
+            colorScale = new ColorScale(colorLow, colorHigh);
         }
 
         a.recycle();
 
         paint = new Paint();
         paint.setStyle(Paint.Style.FILL_AND_STROKE);
-        paint.setColor(colors[0]);
+        paint.setColor(colorScale.getColor(0));
 
         bgPaint = new Paint();
         bgPaint.setStyle(Paint.Style.FILL_AND_STROKE);
@@ -120,15 +121,28 @@ public class LinearGauge extends View implements WidgetUpdater.Widget {
     }
 
     public void setValue(int value) {
+        if (this.value == value) {
+            return;
+        }
         this.value = value;
+        valueChanged = true;
         WidgetUpdater.post();
     }
 
     public void setPercent(float percent) {
-        this.percent = Math.max(Math.min(percent, 1f), 0f);
+        percentSpring.setTarget(Math.max(Math.min(percent, 1f), 0f));
         WidgetUpdater.post();
     }
 
+    /**
+     * Sets how long the gauge may take to reach a new value.
+     *
+     * @param millis Latency budget in milliseconds.
+     */
+    public void setLatencyBudget(long millis) {
+        percentSpring.setLatencyBudget(millis);
+    }
+
     private void setSize(int x, int y) {
         if (vertical) {
             width = y;
@@ -147,15 +161,12 @@ public class LinearGauge extends View implements WidgetUpdater.Widget {
         valueTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_PX, height / 1.2f, getResources().getDisplayMetrics()));
         dst = new RectF(0, 0, x, y);
         altX = textOffset / 8f;
-        updateValueString();
+        updateValueString(value);
     }
 
-    private void updateValueString() {
-        if (unit != null) {
-            output = value + unit;
-        } else {
-            output = Integer.toString(value);
-        }
+    private void updateValueString(int value) {
+        shownValue = value;
+        output.clear().append(value).append(unit);
     }
 
     protected void onDraw(Canvas canvas) {
@@ -171,7 +182,11 @@ public class LinearGauge extends View implements WidgetUpdater.Widget {
         if (bottomText != null) {
             canvas.drawText(bottomText, altX, textOffset, bottomTextPaint);
         }
-        canvas.drawText(output, width - altX, textOffset, valueTextPaint);
+        int value = this.value;
+        if (value != shownValue) {
+            updateValueString(value);
+        }
+        canvas.drawText(output.getChars(), 0, output.length(), width - altX, textOffset, valueTextPaint);
     }
 
     protected void onSizeChanged(int x, int y, int ox, int oy) {
@@ -181,42 +196,6 @@ public class LinearGauge extends View implements WidgetUpdater.Widget {
         setSize(x, y);
     }
 
-    @ColorInt
-    private int getColor(float ratio) {
-        if (ratio <= 0 || colors.length == 1) {
-            return colors[0];
-        }
-        if (ratio >= 1) {
-            return colors[colors.length - 1];
-        }
-
-        // Calc the sector
-        float position = ((colors.length - 1) * ratio);
-        int sector = (int) position;
-        ratio = position - sector;
-
-        // Get the color to mix
-        int sColor = colors[sector];
-        int eColor = colors[sector + 1];
-
-        // Manage the transparent case
-        if (sColor == Color.TRANSPARENT) {
-            sColor = Color.argb(0, Color.red(eColor), Color.green(eColor), Color.blue(eColor));
-        }
-        if (eColor == Color.TRANSPARENT) {
-            eColor = Color.argb(0, Color.red(sColor), Color.green(sColor), Color.blue(sColor));
-        }
-
-        // Calculate the result color
-        int alpha = (int) (Color.alpha(eColor) * ratio + Color.alpha(sColor) * (1 - ratio));
-        int red = (int) (Color.red(eColor) * ratio + Color.red(sColor) * (1 - ratio));
-        int green = (int) (Color.green(eColor) * ratio + Color.green(sColor) * (1 - ratio));
-        int blue = (int) (Color.blue(eColor) * ratio + Color.blue(sColor) * (1 - ratio));
-
-        // Get the color
-        return Color.argb(alpha, red, green, blue);
-    }
-
     public void setBottomText(String bottomText) {
         this.bottomText = bottomText;
     }
@@ -227,24 +206,26 @@ public class LinearGauge extends View implements WidgetUpdater.Widget {
     }
 
     @Override
-    public void onWidgetUpdate() {
+    public boolean onWidgetUpdate() {
         boolean invalid = false;
-        if (oldPercent != percent) {
-            float dv = WidgetUpdater.truncate((percent - oldPercent) * WidgetUpdater.DV(percent)) - 0.001f;
-            oldPercent += dv;
-            oldPercent = WidgetUpdater.truncate(oldPercent);
+        if (percentSpring.step(WidgetUpdater.getFrameDelta())) {
+            oldPercent = Math.max(Math.min(percentSpring.getValue(), 1f), 0f);
 
             if (flipped) {
                 mainBar.set((int) (width * (1.0f - oldPercent)), 0, width, height);
             } else {
                 mainBar.set(0, 0, (int) (width * oldPercent), height);
             }
-            paint.setColor(getColor(oldPercent));
+            paint.setColor(colorScale.getColor(oldPercent));
+            invalid = true;
+        }
+        if (valueChanged) {
+            valueChanged = false;
             invalid = true;
         }
-        updateValueString();
         if (invalid) {
             postInvalidate();
         }
+        return invalid;
     }
 }
@@ -3,42 +3,45 @@ package com.iit.dashboard2022.ui.widget.gauge;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
+import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.util.AttributeSet;
-import android.util.DisplayMetrics;
 import android.view.View;
 import androidx.annotation.Nullable;
 import androidx.annotation.StyleableRes;
-import com.google.common.collect.Lists;
 import com.iit.dashboard2022.R;
+import com.iit.dashboard2022.ui.widget.Spring;
 import com.iit.dashboard2022.ui.widget.WidgetUpdater;
-
-import java.util.List;
-
+import com.iit.dashboard2022.util.Constants;
+
+/**
+ * Segmented bar gauge. Bars left of the current value are drawn in their band color and the rest
+ * in the background color, with an oval (and at high taper, an arc) cut out of the bottom.
+ * <p>
+ * Everything is drawn as rectangles on the view's own canvas, with the cutout applied as a clip,
+ * so the gauge renders on the hardware canvas without offscreen bitmaps.
+ */
 public class SpeedGauge extends View implements WidgetUpdater.Widget {
-    private final Bitmap bitmapBG, bitmaskDraw, bitmaskBuffer;
-    private final Canvas canvasBG, canvasDraw, canvasBuffer;
-    private final Paint paint, maskPaint, dstOver;
+    private final Paint paint;
     private final Rect mask;
     private final RectF ovalCutout = new RectF(), arcCutout = new RectF();
+    private final Path cutout = new Path();
     float arcSweep = 0f;
     /* User Managed */
     private final float minWidth;
     private final int BGColor;
     private final int[] colorWheel = new int[3];
-    private RectF dst;
     private int width = 0, height = 0;
-    private int bars = 0;
-    private float taper, oldTaper = 0;
-    private float percent = 0, oldPercent = 0;
-    private int[] maskWidths;
+    private BarGeometry geometry;
+    private final Spring percentSpring = new Spring(0, Constants.GAUGE_LATENCY_MILLIS);
+    private final Spring taperSpring = new Spring(0, Constants.GAUGE_LATENCY_MILLIS);
+    private float oldTaper = 0;
+    private float oldPercent = 0;
+    private volatile boolean sizeChanged = false;
 
     public SpeedGauge(Context context) {
         this(context, null);
@@ -56,13 +59,6 @@ public class SpeedGauge extends View implements WidgetUpdater.Widget {
         paint = new Paint();
         paint.setStyle(Paint.Style.FILL_AND_STROKE);
 
-        dstOver = new Paint();
-        dstOver.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_OVER));
-
-        maskPaint = new Paint();
-        maskPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-        maskPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
-
         @SuppressLint("ResourceType") @StyleableRes
         int[] set = {
                 android.R.attr.backgroundTint,
@@ -82,20 +78,7 @@ public class SpeedGauge extends View implements WidgetUpdater.Widget {
         colorWheel[0] = a.getColor(i++, Color.DKGRAY);
         colorWheel[1] = a.getColor(i++, Color.LTGRAY);
         minWidth = a.getDimension(i++, 8f);
-        taper = a.getFloat(i, 0.5f);
-
-        DisplayMetrics dm = context.getResources().getDisplayMetrics();
-
-        int x = dm.widthPixels;
-        int y = dm.heightPixels;
-
-        bitmapBG = Bitmap.createBitmap(x, y, Bitmap.Config.ARGB_8888);
-        bitmaskDraw = Bitmap.createBitmap(x, y, Bitmap.Config.ARGB_8888);
-        bitmaskBuffer = Bitmap.createBitmap(x, y, Bitmap.Config.ARGB_8888);
-
-        canvasBuffer = new Canvas();
-        canvasBG = new Canvas();
-        canvasDraw = new Canvas();
+        taperSpring.setTarget(a.getFloat(i, 0.5f));
 
         a.recycle();
         WidgetUpdater.add(this);
@@ -106,137 +89,95 @@ public class SpeedGauge extends View implements WidgetUpdater.Widget {
         WidgetUpdater.remove(this);
     }
 
-    int getColor(float percent) {
-        if (percent > 2 / 3f) {
-            return colorWheel[2];
-        } else if (percent > 1 / 3f) {
-            return colorWheel[1];
-        } else {
-            return colorWheel[0];
-        }
-    }
-
-    void drawBars(int x, int y) {
-        bitmapBG.reconfigure(x, y, Bitmap.Config.ARGB_8888);
-        bitmaskDraw.reconfigure(x, y, Bitmap.Config.ARGB_8888);
-        bitmaskBuffer.reconfigure(x, y, Bitmap.Config.ARGB_8888);
-
-        canvasBG.setBitmap(bitmapBG);
-        canvasDraw.setBitmap(bitmaskDraw);
-        canvasBuffer.setBitmap(bitmaskBuffer);
-
-        bitmapBG.eraseColor(0);
-        bitmaskDraw.eraseColor(0);
-        bitmaskBuffer.eraseColor(0);
-
-        int count = (int) (((x) / 8f));
-        float incX = x / (float) count;
-
-        float sd = getResources().getDisplayMetrics().scaledDensity;
-        boolean draw = true;
-        int xPos = 0;
-        float varX = incX * sd;
-
-        List<Float> widths = Lists.newArrayList();
-
-        widths.add(0f);
-
-        while (xPos <= x) {
-
-            if (draw) {
-                paint.setColor(BGColor);
-                canvasBG.drawRect(xPos, 0, xPos + incX + varX, height, paint);
-                paint.setColor(getColor((xPos + incX) / width));
-                canvasDraw.drawRect(xPos, 0, xPos + incX + varX, height, paint);
-                widths.add(xPos + incX + varX);
-                varX -= incX / 8;
-                if (varX < minWidth - incX) {
-                    varX = minWidth - incX;
-                }
-            } else {
-                xPos += varX;
-            }
-
-            xPos += incX;
-            draw = !draw;
-        }
-        widths.remove(widths.size() - 1);
-        widths.add((float) width);
-
-        bars = widths.size();
-        maskWidths = new int[widths.size()];
-
-        int c = 0;
-        for (Float i : widths) {
-            maskWidths[c++] = (int) (i.intValue() + minWidth / 4);
-        }
-
-        maskWidths[0] = 0;
-
-        WidgetUpdater.post();
-    }
-
-    private int getCount(float percent) {
-        return Math.round((bars - 1) * percent);
-    }
-
     private int getMaskWidth(float percent) {
-        if (maskWidths != null) {
-            int gc = getCount(percent);
-            return maskWidths[gc];
+        BarGeometry geometry = this.geometry;
+        if (geometry != null) {
+            return geometry.maskWidths[Math.round((geometry.steps() - 1) * percent)];
         }
         return 0;
     }
 
     protected void onDraw(Canvas canvas) {
-        canvasBuffer.drawBitmap(bitmapBG, null, dst, null);
-        canvasBuffer.drawRect(mask, maskPaint);
-        canvasBuffer.drawBitmap(bitmaskDraw, null, dst, dstOver);
+        BarGeometry geometry = this.geometry;
+        if (geometry == null) {
+            return;
+        }
+        cutout.rewind();
+        cutout.addOval(ovalCutout, Path.Direction.CW); // TODO: Smooth out corner on mask
         if (oldTaper > 0.75f) {
-            canvasBuffer.drawArc(arcCutout, 180, arcSweep, true, maskPaint);
+            cutout.moveTo(arcCutout.centerX(), arcCutout.centerY());
+            cutout.arcTo(arcCutout, 180, arcSweep);
+            cutout.close();
         }
-        canvasBuffer.drawOval(ovalCutout, maskPaint); // TODO: Smooth out corner on mask
-        canvas.drawBitmap(bitmaskBuffer, null, dst, null);
+
+        float[] left = geometry.left;
+        float[] right = geometry.right;
+        byte[] band = geometry.band;
+        float split = mask.right;
+        canvas.save();
+        canvas.clipOutPath(cutout);
+        for (int b = 0; b < left.length; b++) {
+            if (left[b] < split) {
+                paint.setColor(colorWheel[band[b]]);
+                canvas.drawRect(left[b], 0, Math.min(right[b], split), height, paint);
+            }
+            if (right[b] > split) {
+                paint.setColor(BGColor);
+                canvas.drawRect(Math.max(left[b], split), 0, right[b], height, paint);
+            }
+        }
+        canvas.restore();
     }
 
     public void setTaper(float percent) {
-        this.taper = percent;
+        taperSpring.setTarget(percent);
         WidgetUpdater.post();
     }
 
+    /**
+     * Sets how long the gauge may take to reach a new value.
+     *
+     * @param millis Latency budget in milliseconds.
+     */
+    public void setLatencyBudget(long millis) {
+        percentSpring.setLatencyBudget(millis);
+        taperSpring.setLatencyBudget(millis);
+    }
+
     protected void onSizeChanged(int x, int y, int ox, int oy) {
         if (x <= 0 || y <= 0) {
             return;
         }
         width = x;
         height = y;
-        dst = new RectF(0, 0, x, y);
         arcCutout.set(-width, -height * 2, width * 3, height * 2);
-        drawBars(x, y);
+        geometry = BarGeometry.get(x, getResources().getDisplayMetrics().scaledDensity, minWidth);
+        sizeChanged = true;
+        WidgetUpdater.post();
     }
 
     public void setPercent(float percent) {
-        this.percent = Math.max(Math.min(percent, 1f), 0f);
+        percentSpring.setTarget(Math.max(Math.min(percent, 1f), 0f));
         WidgetUpdater.post();
     }
 
-    public void onWidgetUpdate() {
-        boolean invalid = false;
+    public boolean onWidgetUpdate() {
+        boolean invalid = sizeChanged;
+        sizeChanged = false;
 
-        if (oldPercent != percent) {
-            float dv = WidgetUpdater.truncate((percent - oldPercent) * WidgetUpdater.DV(percent));
-            oldPercent += dv;
-            oldPercent = WidgetUpdater.truncate(oldPercent);
+        float dt = WidgetUpdater.getFrameDelta();
+        if (percentSpring.step(dt)) {
+            oldPercent = Math.max(Math.min(percentSpring.getValue(), 1f), 0f);
             invalid = true;
         }
-
-        if (oldTaper != taper) {
-            float dv = WidgetUpdater.truncate((taper - oldTaper) * WidgetUpdater.DV(taper));
-            oldTaper += dv;
-            oldTaper = WidgetUpdater.truncate(oldTaper);
+        if (taperSpring.step(dt)) {
+            oldTaper = taperSpring.getValue();
             invalid = true;
         }
 
+        if (!invalid) {
+            return false;
+        }
         mask.set(0, 0, getMaskWidth(oldPercent), height);
 
         float OHeight = height / 4f;
@@ -248,9 +189,8 @@ public class SpeedGauge extends View implements WidgetUpdater.Widget {
         }
         ovalCutout.set((-oldTaper * width) - width / 2f, OHeight, (oldTaper * width) + width / 2f, height * 4f);
 
-        if (invalid) {
-            postInvalidate();
-        }
+        postInvalidate();
+        return true;
     }
 
 }
\ No newline at end of file
@@ -6,8 +6,6 @@ import androidx.interpolator.view.animation.FastOutSlowInInterpolator;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
-import java.time.format.DateTimeFormatter;
-
 /**
  * Utility class containing constants for the dashboard
  *
@@ -18,6 +16,23 @@ public class Constants {
     public static final String CABINET_API = "https://logs.iitmotorsports.org/api/v1";
     public static final String LINE_FEED = "\r\n";
 
+    // Telemetry
+    public static final String TELEMETRY_HOST = "255.255.255.255";
+    public static final int TELEMETRY_PORT = 5757;
+
+    // Load Test
+    public static final double LOAD_TEST_LINE_RATE_MULTIPLE = 4;
+    public static final double LOAD_TEST_BURST_FACTOR = 3;
+    public static final double LOAD_TEST_BURST_SECONDS = 0.5;
+    public static final double LOAD_TEST_BURST_PERIOD_SECONDS = 10;
+
+    // Metric history, share of the app's heap class given to MetricHistory
+    public static final int HISTORY_HEAP_DIVISOR = 16;
+
+    // Metric subscriptions, deliveries per second to the dashboard
+    public static final double GAUGE_UPDATE_RATE = 60;
+    public static final double BEAT_UPDATE_RATE = 10;
+
     // JSON
     public static final Gson GSON;
 
@@ -28,13 +43,10 @@ public class Constants {
 
     // Animation Settings
     public static final int ANIM_DURATION = 300;
-    public static final int ANIM_UPDATE_MILLIS = 30;
+    public static final int GAUGE_LATENCY_MILLIS = 300;
     public static final Interpolator ANIM_DEFAULT_INTERPOLATOR = new FastOutSlowInInterpolator();
 
-    public static final DateTimeFormatter DATE_FORMAT;
-
     static {
-        DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm:ss a");
         GSON = new GsonBuilder().setPrettyPrinting().setLenient().create();
     }
 }
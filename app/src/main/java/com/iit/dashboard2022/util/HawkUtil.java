@@ -14,9 +14,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URLConnection;
-import java.text.CharacterIterator;
-import java.text.StringCharacterIterator;
-import java.util.Locale;
 
 /**
  * Utility class with general helpers for the dashboard
@@ -68,18 +65,7 @@ public class HawkUtil {
      * @return Size of file formatted as a String
      */
     public static String humanReadableBytes(long bytes) {
-        long absB = bytes == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(bytes);
-        if (absB < 1024) {
-            return bytes + " B";
-        }
-        long value = absB;
-        CharacterIterator ci = new StringCharacterIterator("KMGTPE");
-        for (int i = 40; i >= 0 && absB > 0xfffccccccccccccL >> i; i -= 10) {
-            value >>= 10;
-            ci.next();
-        }
-        value *= Long.signum(bytes);
-        return String.format(Locale.ENGLISH, "%.1f %ciB", value / 1024.0, ci.current());
+        return ByteFormat.humanReadable(bytes);
     }
 
     /**
@@ -0,0 +1,126 @@
+package com.iit.dashboard2022.util;
+
+/**
+ * A reusable character buffer for building numeric readouts without creating strings.
+ * <p>
+ * Numbers are formatted straight into the buffer, which can then be drawn with
+ * {@code Canvas.drawText(char[], int, int, float, float, Paint)}. The buffer only grows,
+ * so once it has reached its working size formatting allocates nothing.
+ * Instances are not thread safe.
+ */
+public class TextBuffer {
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private char[] chars;
+    private int length = 0;
+
+    public TextBuffer() {
+        this(32);
+    }
+
+    public TextBuffer(int capacity) {
+        chars = new char[capacity];
+    }
+
+    public char[] getChars() {
+        return chars;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public TextBuffer clear() {
+        length = 0;
+        return this;
+    }
+
+    public TextBuffer append(char c) {
+        ensureCapacity(1);
+        chars[length++] = c;
+        return this;
+    }
+
+    public TextBuffer append(CharSequence text) {
+        if (text == null) {
+            return this;
+        }
+        int n = text.length();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            chars[length++] = text.charAt(i);
+        }
+        return this;
+    }
+
+    public TextBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            chars[length++] = '-';
+            value = -value;
+        }
+        int start = length;
+        do {
+            chars[length++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char c = chars[i];
+            chars[i] = chars[j];
+            chars[j] = c;
+        }
+        return this;
+    }
+
+    /**
+     * Appends a decimal number rounded to a fixed number of decimals, like {@code %.Nf}.
+     *
+     * @param value    Value to append.
+     * @param decimals Number of decimals, 0 to 9.
+     * @return This buffer.
+     */
+    public TextBuffer append(double value, int decimals) {
+        if (Double.isNaN(value)) {
+            return append("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return append(value > 0 ? "\u221e" : "-\u221e");
+        }
+        decimals = Math.max(0, Math.min(decimals, POWERS_OF_TEN.length - 1));
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            append('-');
+        }
+        append(scaled / scale);
+        if (decimals > 0) {
+            ensureCapacity(decimals + 1);
+            chars[length++] = '.';
+            long fraction = scaled % scale;
+            for (int i = decimals - 1; i >= 0; i--) {
+                chars[length + i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            length += decimals;
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > chars.length) {
+            char[] grown = new char[Math.max(chars.length * 2, length + extra)];
+            System.arraycopy(chars, 0, grown, 0, length);
+            chars = grown;
+        }
+    }
+}
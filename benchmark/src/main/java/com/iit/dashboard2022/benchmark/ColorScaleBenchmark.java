@@ -0,0 +1,50 @@
+package com.iit.dashboard2022.benchmark;
+
+import com.iit.dashboard2022.ui.widget.gauge.ColorScale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Color interpolation done by gauges on every animated frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorScaleBenchmark {
+
+    @Param({ "2", "3" })
+    public int colors;
+
+    private ColorScale scale;
+    private float ratio = 0;
+
+    @Setup
+    public void setup() {
+        scale = colors == 2
+                ? new ColorScale(0xFFFFFFFF, 0xFF00FF00)
+                : new ColorScale(0xFFFFFFFF, 0x00000000, 0xFF00FF00);
+    }
+
+    @Benchmark
+    public int getColor() {
+        ratio += 0.001f;
+        if (ratio > 1) {
+            ratio = 0;
+        }
+        return scale.getColor(ratio);
+    }
+}
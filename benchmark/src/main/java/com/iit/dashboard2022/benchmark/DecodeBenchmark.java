@@ -0,0 +1,78 @@
+package com.iit.dashboard2022.benchmark;
+
+import com.iit.dashboard2022.ecu.PayloadDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of raw ECU chunks into id / value frames, as done by the ECU thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    /**
+     * Chunk size in bytes. USB reads deliver 64 bytes at full speed, replays and load tests up to 512.
+     */
+    @Param({ "8", "64", "512", "4096" })
+    public int chunkBytes;
+
+    private byte[] chunk;
+    private Blackhole blackhole;
+    private PayloadDecoder decoder;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        decoder = new PayloadDecoder(this::consume);
+        Random random = new Random(42);
+        ByteBuffer buffer = ByteBuffer.allocate(chunkBytes).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            buffer.putInt(1 + random.nextInt(27)).putInt(random.nextInt(1000));
+        }
+        chunk = buffer.array();
+    }
+
+    private void consume(int id, int value) {
+        blackhole.consume(id);
+        blackhole.consume(value);
+    }
+
+    @Benchmark
+    public int decoder() {
+        return decoder.decode(chunk);
+    }
+
+    /**
+     * The decode loop the ECU used before {@link PayloadDecoder}, wrapping every chunk in a buffer.
+     */
+    @Benchmark
+    public int byteBuffer() {
+        ByteBuffer buf = ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN);
+        int frames = 0;
+        while (buf.remaining() >= PayloadDecoder.FRAME_BYTES) {
+            consume(buf.getInt(), buf.getInt());
+            frames++;
+        }
+        return frames;
+    }
+}
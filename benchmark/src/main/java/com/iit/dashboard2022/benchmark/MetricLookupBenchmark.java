@@ -0,0 +1,38 @@
+package com.iit.dashboard2022.benchmark;
+
+import com.iit.dashboard2022.ecu.Metric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of a {@link Metric} by its wire ID, done for every decoded frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricLookupBenchmark {
+
+    /**
+     * First metric, last raw metric, a derived metric and an unknown ID.
+     */
+    @Param({ "1", "27", "106", "999" })
+    public int id;
+
+    @Benchmark
+    public Metric getMetricById() {
+        return Metric.getMetricById(id);
+    }
+}
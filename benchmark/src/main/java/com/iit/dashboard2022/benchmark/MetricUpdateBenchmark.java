@@ -0,0 +1,64 @@
+package com.iit.dashboard2022.benchmark;
+
+import com.iit.dashboard2022.ecu.Metric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link Metric#update(int)}, including statistics, history and fan-out to its listeners.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricUpdateBenchmark {
+
+    @Param({ "0", "1", "4", "16" })
+    public int listeners;
+
+    @Param({ "ON_RECEIVE", "ON_VALUE_CHANGE" })
+    public Metric.UpdateMethod updateMethod;
+
+    private final Metric metric = Metric.SPEEDOMETER;
+    private final List<Consumer<Metric>> added = new ArrayList<>();
+    private int value = 0;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        for (int i = 0; i < listeners; i++) {
+            Consumer<Metric> listener = m -> blackhole.consume(m.getValue());
+            metric.addMessageListener(listener, updateMethod);
+            added.add(listener);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        added.forEach(metric::removeMessageListener);
+        added.clear();
+    }
+
+    @Benchmark
+    public void update() {
+        // Alternate values so value change listeners fire on every update
+        metric.update(value ^= 1);
+    }
+}
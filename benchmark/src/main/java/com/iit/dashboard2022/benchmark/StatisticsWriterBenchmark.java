@@ -0,0 +1,52 @@
+package com.iit.dashboard2022.benchmark;
+
+import com.iit.dashboard2022.logging.StatisticsWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing one sample to a session's statistics file, as {@code LogFile.logBinaryStatistics} does
+ * for every frame while logging.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsWriterBenchmark {
+
+    private File file;
+    private StatisticsWriter writer;
+    private int value = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        file = File.createTempFile("benchmark", ".stats");
+        writer = new StatisticsWriter(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        writer.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public void write() {
+        writer.write(System.currentTimeMillis(), 12, value++ & 0xFFF);
+    }
+}
@@ -0,0 +1,66 @@
+package com.iit.dashboard2022.diagnostics;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of pipeline counters updated on hot paths.
+ * <p>
+ * Each counter is a {@link LongAdder}, so concurrent increments from different threads land in
+ * separate cells instead of contending on one value, and reading a counter never blocks a writer.
+ */
+public enum Counter {
+    ECU_CHUNKS("ECU chunks", "chunks"),
+    ECU_BYTES("ECU bytes", "B"),
+    ECU_CHUNKS_DECODED("ECU chunks decoded", "chunks"),
+    ECU_FRAMES("ECU frames", "frames"),
+    ECU_UNKNOWN_IDS("Unknown IDs", "frames"),
+    ECU_DROPPED_BYTES("Dropped bytes", "B"),
+    METRIC_UPDATES("Metric updates", "updates"),
+    METRIC_DISPATCHES("Listener dispatches", "calls"),
+    LOG_LINES("Log lines", "lines"),
+    LOG_BYTES("Log bytes", "B"),
+    LOG_ERRORS("Log write errors", "errors");
+
+    @Getter
+    private final String name;
+    @Getter
+    private final String unit;
+    private final LongAdder adder = new LongAdder();
+
+    Counter(String name, String unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    public void increment() {
+        adder.increment();
+    }
+
+    public void add(long amount) {
+        adder.add(amount);
+    }
+
+    /**
+     * Gets the current total. Concurrent updates may or may not be included.
+     *
+     * @return Sum of all increments since the last reset.
+     */
+    public long sum() {
+        return adder.sum();
+    }
+
+    public void reset() {
+        adder.reset();
+    }
+
+    /**
+     * Resets every counter.
+     */
+    public static void resetAll() {
+        for (Counter counter : values()) {
+            counter.reset();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.iit.dashboard2022.diagnostics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size latency histogram with log-linear buckets, in the style of HdrHistogram.
+ * <p>
+ * Values are kept in microseconds, from 1 us to about a minute. Values below {@link #SUB_BUCKETS} are
+ * exact and every power of two above is split into {@link #HALF_SUB_BUCKETS} linear sub buckets,
+ * giving at worst about 3% precision at any magnitude.
+ * Recording is a single atomic increment and never allocates, so it is safe on hot paths and
+ * from any number of threads.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int MAX_MAGNITUDE = 26;
+    private static final long MAX_MICROS = (1L << MAX_MAGNITUDE) - 1;
+    private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos Latency in nanoseconds. Negative values are ignored.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        long micros = Math.min(nanos / 1000, MAX_MICROS);
+        counts.incrementAndGet(index(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+            // Retry until the max is updated or a larger value wins
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the largest recorded latency.
+     *
+     * @return Latency in microseconds.
+     */
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Gets the mean recorded latency.
+     *
+     * @return Latency in microseconds.
+     */
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : totalMicros.get() / (double) n;
+    }
+
+    /**
+     * Gets the latency at a percentile, as the upper bound of the bucket that holds it.
+     *
+     * @param percentile Percentile between 0 and 100.
+     * @return Latency in microseconds.
+     */
+    public long getPercentileMicros(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    /**
+     * Formats count, mean, median, tail percentiles and max on one line.
+     *
+     * @return Summary of the histogram.
+     */
+    public String summary() {
+        return String.format(Locale.US, "n=%d mean=%s p50=%s p90=%s p99=%s p99.9=%s max=%s",
+                getCount(), format(getMeanMicros()), format(getPercentileMicros(50)), format(getPercentileMicros(90)),
+                format(getPercentileMicros(99)), format(getPercentileMicros(99.9)), format(getMaxMicros()));
+    }
+
+    private static String format(double micros) {
+        if (micros >= 1000) {
+            return String.format(Locale.US, "%.1fms", micros / 1000);
+        }
+        return String.format(Locale.US, "%.0fus", micros);
+    }
+
+    static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS + 1;
+        return shift * HALF_SUB_BUCKETS + (int) (micros >>> shift);
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long sub = index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,129 @@
+package com.iit.dashboard2022.diagnostics;
+
+import lombok.Getter;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Traces the latency of ECU data from USB arrival until the frame showing it is drawn.
+ * <p>
+ * Every chunk is stamped when it arrives from the serial port. The ECU thread reports when it
+ * starts and finishes decoding the chunk. From there on, tracing follows the oldest value that has
+ * not been drawn yet: the widget updater picks it up on its next frame, and the draw listener on the
+ * UI thread completes it when the invalidated views are drawn. Each {@link Stage} has its own
+ * {@link LatencyHistogram}.
+ */
+public final class LatencyTracer {
+
+    private static final AtomicLong pendingArrival = new AtomicLong();
+    private static volatile long pendingDispatch = 0;
+    private static final AtomicLong awaitingArrival = new AtomicLong();
+    private static volatile long awaitingFrame = 0;
+
+    private LatencyTracer() {
+    }
+
+    /**
+     * Gets a timestamp comparable with all stamps used by the tracer.
+     *
+     * @return Monotonic time in nanoseconds.
+     */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Called by the ECU thread once a chunk has been decoded and dispatched to metric listeners.
+     *
+     * @param arrival     When the chunk arrived from the serial port.
+     * @param decodeStart When the ECU thread took the chunk off the queue.
+     */
+    public static void onChunkDispatched(long arrival, long decodeStart) {
+        long end = now();
+        Stage.QUEUE.histogram.record(decodeStart - arrival);
+        Stage.DECODE.histogram.record(end - decodeStart);
+        // Only the ECU thread fills the slot, so the dispatch time is written before the arrival publishes it
+        if (pendingArrival.get() == 0) {
+            pendingDispatch = end;
+            pendingArrival.set(arrival);
+        }
+    }
+
+    /**
+     * Called by the widget updater after updating widgets for a frame.
+     *
+     * @param invalidated Whether any widget was invalidated by this frame.
+     */
+    public static void onWidgetFrame(boolean invalidated) {
+        long arrival = pendingArrival.get();
+        if (arrival == 0) {
+            return;
+        }
+        long now = now();
+        long dispatch = pendingDispatch;
+        pendingArrival.set(0);
+        Stage.UPDATE.histogram.record(now - dispatch);
+        if (invalidated && awaitingArrival.get() == 0) {
+            awaitingFrame = now;
+            awaitingArrival.set(arrival);
+        }
+    }
+
+    /**
+     * Called on the UI thread whenever the view tree is drawn.
+     */
+    public static void onDraw() {
+        long arrival = awaitingArrival.get();
+        if (arrival == 0) {
+            return;
+        }
+        long now = now();
+        long frame = awaitingFrame;
+        awaitingArrival.set(0);
+        Stage.DRAW.histogram.record(now - frame);
+        Stage.TOTAL.histogram.record(now - arrival);
+    }
+
+    /**
+     * Clears every stage histogram.
+     */
+    public static void reset() {
+        for (Stage stage : Stage.values()) {
+            stage.histogram.reset();
+        }
+    }
+
+    /**
+     * Formats every stage histogram, one line per stage.
+     *
+     * @return Latency report.
+     */
+    public static String report() {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            builder.append(String.format(Locale.US, "%-26s", stage.getName())).append(stage.histogram.summary()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * An enumeration of traced stages.
+     */
+    public enum Stage {
+        QUEUE("USB arrival to decode"),
+        DECODE("Decode and dispatch"),
+        UPDATE("Dispatch to widget update"),
+        DRAW("Widget update to draw"),
+        TOTAL("USB arrival to draw");
+
+        @Getter
+        private final String name;
+        @Getter
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Stage(String name) {
+            this.name = name;
+        }
+    }
+}
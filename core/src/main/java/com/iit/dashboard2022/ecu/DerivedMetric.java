@@ -0,0 +1,75 @@
+package com.iit.dashboard2022.ecu;
+
+import lombok.Getter;
+
+/**
+ * An enumeration of metrics computed from other metrics.
+ * <p>
+ * Each entry declares its output {@link Metric}, the metrics it reads and how to compute it.
+ * Inputs may be the outputs of other derived metrics as long as those are declared earlier.
+ */
+public enum DerivedMetric {
+    POWER_LIMIT(Metric.POWER_LIMIT, (in, prev) -> in[0] * in[1],
+            Metric.STACK_VOLTAGE, Metric.STACK_CURRENT),
+    // NOTE: Actual MC power not being used
+    POWER_USAGE(Metric.POWER_USAGE, (in, prev) -> (int) (((long) in[0] + in[1]) / 2 * in[2]),
+            Metric.MC0_VOLTAGE, Metric.MC1_VOLTAGE, Metric.BMS_DISCHARGE_LIM),
+    POWER_PERCENT(Metric.POWER_PERCENT, (in, prev) -> clampPercent(Math.abs(in[0] / (float) (in[1] == 0 ? 1 : in[1])) * 100f),
+            Metric.POWER_USAGE, Metric.POWER_LIMIT),
+    SPEED_DELTA_PERCENT(Metric.SPEED_DELTA_PERCENT, (in, prev) -> Math.abs(in[0] - prev[0]) * 32,
+            Metric.SPEEDOMETER),
+    MC0_TEMP_PERCENT(Metric.MC0_TEMP_PERCENT, (in, prev) -> clampPercent(in[0]),
+            Metric.MC0_BOARD_TEMP),
+    MC1_TEMP_PERCENT(Metric.MC1_TEMP_PERCENT, (in, prev) -> clampPercent(in[0]),
+            Metric.MC1_BOARD_TEMP);
+
+    @Getter
+    private final Metric output;
+    private final Function function;
+    private final Metric[] inputs;
+
+    DerivedMetric(Metric output, Function function, Metric... inputs) {
+        this.output = output;
+        this.function = function;
+        this.inputs = inputs;
+    }
+
+    /**
+     * Gets the metrics this metric is computed from.
+     *
+     * @return Array of input metrics, in the order passed to the compute function.
+     */
+    public Metric[] getInputs() {
+        return inputs.clone();
+    }
+
+    int inputCount() {
+        return inputs.length;
+    }
+
+    Metric input(int index) {
+        return inputs[index];
+    }
+
+    int compute(int[] values, int[] previous) {
+        return function.compute(values, previous);
+    }
+
+    private static int clampPercent(float percent) {
+        return (int) Math.max(Math.min(percent, 100), 0);
+    }
+
+    /**
+     * Computes a derived value.
+     */
+    @FunctionalInterface
+    interface Function {
+        /**
+         * @param values   Current values of the inputs.
+         * @param previous Values of the inputs before their latest change, independent of how often
+         *                 the derived value is computed.
+         * @return The derived value.
+         */
+        int compute(int[] values, int[] previous);
+    }
+}
@@ -0,0 +1,134 @@
+package com.iit.dashboard2022.ecu;
+
+import com.iit.dashboard2022.logging.LogFile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Computes {@link DerivedMetric}s off the ECU and UI threads.
+ * <p>
+ * Input values are captured into a snapshot on the ECU thread as they change. A single worker
+ * thread then copies the snapshot under one lock, so every derived value is computed from a
+ * consistent set of inputs, and recomputes only the derived metrics whose inputs changed.
+ * Each input also keeps the value it had before its latest change, so a derived metric comparing
+ * the two sees consecutive samples however many changes a recompute coalesces.
+ * Results are published through {@link Metric#update(int)} and logged like raw metrics.
+ */
+@Slf4j
+public class DerivedMetricEngine {
+    private static final DerivedMetric[] DERIVED = DerivedMetric.values();
+    private static final int METRIC_COUNT = Metric.values().length;
+
+    private final Object lock = new Object();
+    private final int[] snapshot = new int[METRIC_COUNT];
+    private final int[] snapshotPrevious = new int[METRIC_COUNT];
+    private final boolean[] snapshotChanged = new boolean[METRIC_COUNT];
+
+    private final int[] working = new int[METRIC_COUNT];
+    private final int[] workingPrevious = new int[METRIC_COUNT];
+    private final boolean[] changed = new boolean[METRIC_COUNT];
+    private final int[][] values = new int[DERIVED.length][];
+    private final int[][] previous = new int[DERIVED.length][];
+
+    private final Supplier<LogFile> activeLogFile;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Derived-Metric-Thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param activeLogFile Supplies the session to log derived values to, or null when not logging.
+     */
+    public DerivedMetricEngine(Supplier<LogFile> activeLogFile) {
+        this.activeLogFile = activeLogFile;
+        boolean[] registered = new boolean[METRIC_COUNT];
+        boolean[] declared = new boolean[METRIC_COUNT];
+        for (DerivedMetric derived : DERIVED) {
+            values[derived.ordinal()] = new int[derived.inputCount()];
+            previous[derived.ordinal()] = new int[derived.inputCount()];
+            for (int i = 0; i < derived.inputCount(); i++) {
+                Metric input = derived.input(i);
+                if (input.isDerived()) {
+                    if (!declared[input.ordinal()]) {
+                        throw new IllegalStateException(derived + " depends on " + input + " which is not computed before it");
+                    }
+                } else if (!registered[input.ordinal()]) {
+                    input.addMessageListener(this::onInputChanged);
+                    registered[input.ordinal()] = true;
+                }
+            }
+            declared[derived.getOutput().ordinal()] = true;
+        }
+    }
+
+    private void onInputChanged(Metric metric) {
+        synchronized (lock) {
+            snapshotPrevious[metric.ordinal()] = snapshot[metric.ordinal()];
+            snapshot[metric.ordinal()] = metric.getValue();
+            snapshotChanged[metric.ordinal()] = true;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::recompute);
+        }
+    }
+
+    private void recompute() {
+        scheduled.set(false);
+        synchronized (lock) {
+            for (int i = 0; i < METRIC_COUNT; i++) {
+                if (snapshotChanged[i]) {
+                    working[i] = snapshot[i];
+                    workingPrevious[i] = snapshotPrevious[i];
+                    changed[i] = true;
+                    snapshotChanged[i] = false;
+                }
+            }
+        }
+
+        LogFile logFile = activeLogFile.get();
+        for (DerivedMetric derived : DERIVED) {
+            int[] in = values[derived.ordinal()];
+            int[] prev = previous[derived.ordinal()];
+            boolean dirty = false;
+            for (int i = 0; i < in.length; i++) {
+                int ordinal = derived.input(i).ordinal();
+                dirty |= changed[ordinal];
+                in[i] = working[ordinal];
+                prev[i] = workingPrevious[ordinal];
+            }
+            if (!dirty) {
+                continue;
+            }
+
+            int result;
+            try {
+                result = derived.compute(in, prev);
+            } catch (RuntimeException e) {
+                log.error("Failed to compute derived metric: " + derived, e);
+                continue;
+            }
+
+            Metric output = derived.getOutput();
+            int ordinal = output.ordinal();
+            if (working[ordinal] != result) {
+                workingPrevious[ordinal] = working[ordinal];
+                working[ordinal] = result;
+                changed[ordinal] = true;
+            }
+            output.update(result);
+            if (logFile != null) {
+                logFile.logBinaryStatistics(output);
+            }
+        }
+
+        for (int i = 0; i < METRIC_COUNT; i++) {
+            changed[i] = false;
+        }
+    }
+}
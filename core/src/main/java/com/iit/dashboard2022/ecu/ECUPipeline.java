@@ -0,0 +1,236 @@
+package com.iit.dashboard2022.ecu;
+
+import com.iit.dashboard2022.diagnostics.Counter;
+import com.iit.dashboard2022.diagnostics.LatencyTracer;
+import com.iit.dashboard2022.logging.LogFile;
+import com.iit.dashboard2022.telemetry.TelemetryUplink;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The ECU data path, independent of where the data comes from.
+ * <p>
+ * Raw chunks are queued by {@link #submit(byte[])} and decoded on a dedicated thread. Every frame
+ * updates its {@link Metric}, is logged to the active session and offered to the telemetry uplink,
+ * and derived metrics are recomputed from the results. Replayed and generated data update metrics
+ * like live data but are neither logged nor sent over telemetry. Nothing here depends on Android, so the
+ * same pipeline runs on the dashboard and on a desktop JVM.
+ */
+@Slf4j
+public class ECUPipeline {
+    private final List<Consumer<State>> stateListener = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Chunk> payloadQueue = new LinkedBlockingQueue<>();
+    private final Supplier<LogFile> activeLogFile;
+    /**
+     * Source of the chunk being decoded. Written by the ECU thread only.
+     */
+    private volatile Source source = Source.SERIAL;
+    @Getter
+    private final TelemetryUplink uplink = new TelemetryUplink();
+    private final DerivedMetricEngine derivedMetricEngine;
+    private final PayloadDecoder decoder = new PayloadDecoder(this::handlePayload);
+    /**
+     * Queued to reset the decoder in order with the chunks around it.
+     */
+    private final Chunk resetMarker = new Chunk(new byte[0], 0, Source.SERIAL);
+    /**
+     * Queued to clear {@link Metric#STATE} on the ECU thread, the only writer of metric history.
+     */
+    private final Chunk stateResetMarker = new Chunk(new byte[0], 0, Source.SERIAL);
+
+    /**
+     * @param activeLogFile Supplies the session to log to, or null when not logging.
+     */
+    public ECUPipeline(Supplier<LogFile> activeLogFile) {
+        this.activeLogFile = activeLogFile;
+        this.derivedMetricEngine = new DerivedMetricEngine(() -> source == Source.SERIAL ? activeLogFile.get() : null);
+
+        // Handles state management
+        Metric.STATE.addMessageListener(stat -> {
+            State state = State.getStateById(stat.getValue());
+            if (state == null) {
+                return;
+            }
+            stateListener.forEach(consumer -> consumer.accept(state));
+        });
+
+        // Thread for handling message queue
+        Thread ecuThread = new Thread(() -> {
+            while (true) {
+                try {
+                    Chunk chunk = payloadQueue.take();
+                    if (chunk == resetMarker) {
+                        decoder.reset();
+                        continue;
+                    }
+                    if (chunk == stateResetMarker) {
+                        // No state has this id, so the next state received is always dispatched as a change
+                        Metric.STATE.update(-1);
+                        continue;
+                    }
+                    if (chunk.source != source) {
+                        // A frame left incomplete by the other source can never be completed
+                        decoder.reset();
+                        source = chunk.source;
+                    }
+                    long decodeStart = LatencyTracer.now();
+                    decoder.decode(chunk.data);
+                    Counter.ECU_CHUNKS_DECODED.increment();
+                    LatencyTracer.onChunkDispatched(chunk.arrival, decodeStart);
+                } catch (InterruptedException e) {
+                    log.warn("ECU Thread Interrupted", e);
+                }
+            }
+        });
+        ecuThread.setDaemon(true);
+        ecuThread.setName("ECU-Thread");
+        ecuThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(ecuThread::interrupt));
+    }
+
+    /**
+     * Queues raw data for decoding, exactly as if it had been received over serial.
+     * Used by the serial port only; other sources use {@link #submit(byte[], Source)}.
+     *
+     * @param data Little endian id / value frames.
+     */
+    public void submit(byte[] data) {
+        submit(data, Source.SERIAL);
+    }
+
+    /**
+     * Queues raw data from a given source for decoding. Metrics are updated for every source, but
+     * only {@link Source#SERIAL} data is logged to the active session and sent over telemetry.
+     * Switching source drops a frame left incomplete by the previous one.
+     *
+     * @param data   Little endian id / value frames.
+     * @param source Where the data comes from.
+     */
+    public void submit(byte[] data, Source source) {
+        Counter.ECU_CHUNKS.increment();
+        Counter.ECU_BYTES.add(data.length);
+        payloadQueue.add(new Chunk(data, LatencyTracer.now(), source));
+    }
+
+    /**
+     * Queues replayed data for decoding. Metrics are updated as with {@link #submit(byte[])}, but
+     * nothing is logged to the active session or sent over telemetry, so a replay is not recorded
+     * again or mistaken for the car in the pit.
+     *
+     * @param data Little endian id / value frames.
+     */
+    public void submitReplay(byte[] data) {
+        submit(data, Source.REPLAY);
+    }
+
+    /**
+     * Queues generated data for decoding, such as from a {@link TrafficGenerator}. Like a replay,
+     * it is neither logged nor sent over telemetry, so synthetic values never pass for the car.
+     *
+     * @param data Little endian id / value frames.
+     */
+    public void submitGenerated(byte[] data) {
+        submit(data, Source.GENERATED);
+    }
+
+    /**
+     * Marks the end of a stream, such as when the serial connection is opened or closed. A frame left
+     * incomplete by the chunks before is dropped rather than completed by the next stream.
+     */
+    public void resetStream() {
+        payloadQueue.add(resetMarker);
+    }
+
+    /**
+     * Clears the current {@link State} after the chunks already queued, so the next state received
+     * is reported to {@link #onStateChangeEvent(Consumer)} listeners even if it did not change.
+     */
+    public void resetState() {
+        payloadQueue.add(stateResetMarker);
+    }
+
+    /**
+     * Gets the number of chunks waiting to be decoded.
+     *
+     * @return Size of the payload queue.
+     */
+    public int getPendingChunks() {
+        return payloadQueue.size();
+    }
+
+    /**
+     * Event fired each time the {@link State} changes.
+     *
+     * @param consumer {@link Consumer<State>}
+     */
+    public void onStateChangeEvent(Consumer<State> consumer) {
+        this.stateListener.add(consumer);
+    }
+
+    /**
+     * Handles the payload based upon the interpreter mode.
+     * The raw data is logged to the binary file regardless of mode and handed to the telemetry uplink,
+     * unless it came from another source such as a replay.
+     *
+     * @param id    ID of the metric.
+     * @param value Value of the metric.
+     */
+    private void handlePayload(int id, int value) {
+        Counter.ECU_FRAMES.increment();
+        Metric metric = Metric.getMetricById(id);
+        if (metric == null || metric.isDerived()) {
+            Counter.ECU_UNKNOWN_IDS.increment();
+            log.warn("Invalid metric w/ ID: {}", id);
+            return;
+        }
+        metric.update(value);
+        if (source != Source.SERIAL) {
+            return;
+        }
+        LogFile logFile = activeLogFile.get();
+        if (logFile != null) {
+            logFile.logBinaryStatistics(metric);
+        }
+        uplink.offer(id, value, System.currentTimeMillis());
+    }
+
+    /**
+     * Raw data received from the ECU, stamped with its arrival time for latency tracing.
+     */
+    private static final class Chunk {
+        private final byte[] data;
+        private final long arrival;
+        private final Source source;
+
+        private Chunk(byte[] data, long arrival, Source source) {
+            this.data = data;
+            this.arrival = arrival;
+            this.source = source;
+        }
+    }
+
+    /**
+     * Where raw data comes from.
+     */
+    public enum Source {
+        /**
+         * The car, over the serial port.
+         */
+        SERIAL,
+        /**
+         * A recorded session played back by {@link SessionReplay}.
+         */
+        REPLAY,
+        /**
+         * Synthetic traffic from a {@link TrafficGenerator}.
+         */
+        GENERATED
+    }
+}
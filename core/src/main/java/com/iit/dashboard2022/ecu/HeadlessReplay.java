@@ -0,0 +1,57 @@
+package com.iit.dashboard2022.ecu;
+
+import com.iit.dashboard2022.diagnostics.Counter;
+import com.iit.dashboard2022.diagnostics.LatencyTracer;
+import com.iit.dashboard2022.logging.LogFile;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Replays a recorded session through the {@link ECUPipeline} on a desktop JVM, without the app.
+ * <p>
+ * Useful for profiling the decode and dispatch path with ordinary JVM tools. Nothing is logged,
+ * so the session is left untouched. Prints the replay summary, counters and latency report once
+ * the pipeline has drained.
+ * <p>
+ * Usage: {@code HeadlessReplay <session dir> [speed]}, where speed defaults to as fast as possible.
+ */
+public final class HeadlessReplay {
+
+    private HeadlessReplay() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: HeadlessReplay <session dir> [speed]");
+            System.exit(2);
+        }
+        File dir = new File(args[0]);
+        File statsFile = new File(dir, LogFile.STATS_FILE_NAME);
+        if (!statsFile.isFile()) {
+            System.err.println("No statistics file in " + dir);
+            System.exit(1);
+        }
+        File mapFile = new File(dir, LogFile.STATS_MAP_FILE_NAME);
+
+        ECUPipeline pipeline = new ECUPipeline(() -> null);
+        SessionReplay replay = new SessionReplay(statsFile, mapFile.isFile() ? mapFile : null, pipeline::submitReplay, pipeline::getPendingChunks);
+        replay.setSpeed(args.length > 1 ? Double.parseDouble(args[1]) : SessionReplay.MAX_SPEED);
+        CountDownLatch done = new CountDownLatch(1);
+        replay.setCompletionListener(r -> done.countDown());
+        replay.start();
+        done.await();
+
+        // Wait for the pipeline to decode everything that was submitted
+        while (Counter.ECU_CHUNKS_DECODED.sum() < Counter.ECU_CHUNKS.sum()) {
+            Thread.sleep(10);
+        }
+
+        System.out.println(replay.summary());
+        for (Counter counter : Counter.values()) {
+            System.out.println(String.format(Locale.US, "%-20s %d %s", counter.getName(), counter.sum(), counter.getUnit()));
+        }
+        System.out.println(LatencyTracer.report());
+    }
+}
@@ -1,5 +1,6 @@
 package com.iit.dashboard2022.ecu;
 
+import com.iit.dashboard2022.diagnostics.Counter;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -7,6 +8,7 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -38,14 +40,35 @@ public enum Metric {
     START_LIGHT(24),
     STATE(25),
     SERIAL_VAR_RESPONSE(26),
-    STEER(27);
+    STEER(27),
+
+    /* Derived metrics, computed by DerivedMetricEngine */
+    POWER_LIMIT(101, true),
+    POWER_USAGE(102, true),
+    POWER_PERCENT(103, true),
+    SPEED_DELTA_PERCENT(104, true),
+    MC0_TEMP_PERCENT(105, true),
+    MC1_TEMP_PERCENT(106, true);
 
     @Getter
     private final int id;
+    /**
+     * Whether the metric is computed on the dashboard rather than received from the ECU.
+     */
+    @Getter
+    private final boolean derived;
     @Getter
     private int value = 0;
+    @Getter
+    private final MetricStatistics statistics = new MetricStatistics();
+    @Getter
+    private final MetricHistory history = new MetricHistory();
     private final Map<Consumer<Metric>, UpdateMethod> messageListeners = new ConcurrentHashMap<>();
 
+    Metric(int id) {
+        this(id, false);
+    }
+
     /**
      * Gets the name of the metric.
      *
@@ -59,25 +82,33 @@ public enum Metric {
      * Update the message from the ECU
      *
      * @param val The value of the field
-     * @implNote This should only be called internal to {@link ECU}
+     * @implNote This should only be called internal to {@link ECUPipeline} and {@link DerivedMetricEngine}
      */
     public void update(int val) {
         long prevValue = this.value;
         this.value = val;
+        long now = System.currentTimeMillis();
+        statistics.accept(val, now);
+        history.append(now, val);
+        Counter.METRIC_UPDATES.increment();
 
+        int dispatched = 0;
         for (Map.Entry<Consumer<Metric>, UpdateMethod> entry : messageListeners.entrySet()) {
             Consumer<Metric> consumer = entry.getKey();
             switch (entry.getValue()) {
                 case ON_VALUE_CHANGE:
                     if (prevValue != value) {
                         consumer.accept(this);
+                        dispatched++;
                     }
                     break;
                 case ON_RECEIVE:
                     consumer.accept(this);
+                    dispatched++;
                     break;
             }
         }
+        Counter.METRIC_DISPATCHES.add(dispatched);
     }
 
     /**
@@ -99,6 +130,36 @@ public enum Metric {
         messageListeners.put(messageListener, updateMethod);
     }
 
+    /**
+     * Removes a message listener
+     *
+     * @param messageListener The listener to be removed
+     */
+    public void removeMessageListener(Consumer<Metric> messageListener) {
+        messageListeners.remove(messageListener);
+    }
+
+    /**
+     * Subscribes to every change of value, delivered on the thread updating the metric.
+     *
+     * @param listener Receives the values.
+     * @return {@link MetricSubscription} to dispose when no longer needed.
+     */
+    public MetricSubscription subscribe(IntConsumer listener) {
+        return subscribe(listener, MetricSubscription.options());
+    }
+
+    /**
+     * Subscribes to the values of the metric.
+     *
+     * @param listener Receives the values.
+     * @param options  Delivery thread, rate limits and filters, see {@link MetricSubscription.Options}.
+     * @return {@link MetricSubscription} to dispose when no longer needed.
+     */
+    public MetricSubscription subscribe(IntConsumer listener, MetricSubscription.Options options) {
+        return new MetricSubscription(this, listener, options);
+    }
+
     public enum UpdateMethod {
         /**
          * Fire the event each time a value is received
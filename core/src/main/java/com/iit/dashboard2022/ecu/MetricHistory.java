@@ -0,0 +1,152 @@
+package com.iit.dashboard2022.ecu;
+
+/**
+ * A fixed capacity, in-memory history of a single {@link Metric}.
+ * <p>
+ * Samples are stored in primitive ring buffers of timestamps and values. Appends come from a
+ * single writer (the thread that updates the metric) and never lock. Any number of readers can
+ * take a consistent copy with {@link #snapshot(long, long[], int[])}; samples overwritten while
+ * they were being copied are detected and dropped from the copy.
+ * <p>
+ * Capacity is derived from a memory budget shared by every metric, see {@link #setMemoryBudget(long)}.
+ */
+public class MetricHistory {
+    /**
+     * Bytes used by one sample, a long timestamp and an int value.
+     */
+    public static final int SAMPLE_BYTES = 12;
+    public static final long DEFAULT_MEMORY_BUDGET = 8L * 1024 * 1024;
+
+    private static volatile long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    private static volatile int budgetGeneration = 0;
+
+    private volatile Ring ring;
+
+    /**
+     * Sets the total number of bytes all metric histories may use.
+     * Histories are reallocated, and therefore cleared, on their next append.
+     *
+     * @param bytes Memory budget in bytes.
+     */
+    public static void setMemoryBudget(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + bytes);
+        }
+        memoryBudget = bytes;
+        budgetGeneration++;
+    }
+
+    public static long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Gets the per-metric capacity for the current budget.
+     *
+     * @return Number of samples each history holds, always a power of two.
+     */
+    public static int getCapacity() {
+        long perMetric = memoryBudget / SAMPLE_BYTES / Metric.values().length;
+        return Integer.highestOneBit((int) Math.max(Math.min(perMetric, 1 << 30), 16));
+    }
+
+    /**
+     * Appends a sample. Must only be called from the metric's writing thread.
+     *
+     * @param time  Epoch millis of the sample.
+     * @param value Value of the sample.
+     */
+    public void append(long time, int value) {
+        Ring r = ring;
+        if (r == null || r.generation != budgetGeneration) {
+            r = new Ring(getCapacity(), budgetGeneration);
+            ring = r;
+        }
+        long h = r.head;
+        int i = (int) (h & r.mask);
+        r.times[i] = time;
+        r.values[i] = value;
+        r.head = h + 1;
+    }
+
+    /**
+     * Gets the number of samples currently held.
+     *
+     * @return Number of samples available to {@link #snapshot(long, long[], int[])}.
+     */
+    public int size() {
+        Ring r = ring;
+        return r == null ? 0 : (int) Math.min(r.head, r.times.length);
+    }
+
+    /**
+     * Gets the total number of samples appended since the history was allocated.
+     *
+     * @return Number of appended samples.
+     */
+    public long getTotalCount() {
+        Ring r = ring;
+        return r == null ? 0 : r.head;
+    }
+
+    /**
+     * Copies the most recent samples at or after the given time, oldest first.
+     *
+     * @param fromTime Epoch millis of the oldest sample wanted.
+     * @param times    Destination for timestamps.
+     * @param values   Destination for values, at least as long as {@code times}.
+     * @return Number of samples copied.
+     */
+    public int snapshot(long fromTime, long[] times, int[] values) {
+        Ring r = ring;
+        if (r == null) {
+            return 0;
+        }
+        int capacity = r.times.length;
+        long head = r.head;
+        long start = Math.max(0, head - Math.min(capacity, times.length));
+        int count = (int) (head - start);
+        for (int n = 0; n < count; n++) {
+            int i = (int) ((start + n) & r.mask);
+            times[n] = r.times[i];
+            values[n] = r.values[i];
+        }
+
+        // The writer may have lapped the oldest entries, including the one it is writing now
+        long firstValid = r.head + 1 - capacity;
+        int skip = (int) Math.max(0, Math.min(count, firstValid - start));
+
+        // Timestamps are non-decreasing, so search for the first wanted sample
+        int lo = skip;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < fromTime) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int copied = count - lo;
+        if (lo > 0 && copied > 0) {
+            System.arraycopy(times, lo, times, 0, copied);
+            System.arraycopy(values, lo, values, 0, copied);
+        }
+        return copied;
+    }
+
+    private static class Ring {
+        final long[] times;
+        final int[] values;
+        final int mask;
+        final int generation;
+        volatile long head;
+
+        Ring(int capacity, int generation) {
+            this.times = new long[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.iit.dashboard2022.ecu;
+
+import java.util.Arrays;
+
+/**
+ * Streaming statistics of a single {@link Metric}, updated on the ingest side as each value arrives.
+ * <p>
+ * Keeps a running mean and variance (Welford), min / max, a mean over the last
+ * {@link #WINDOW_MILLIS} milliseconds, a smoothed rate of change and P2 estimates of the
+ * median, 95th and 99th percentiles. Memory use is constant regardless of sample count.
+ * Readers take a {@link Snapshot} rather than reading fields directly.
+ */
+public class MetricStatistics {
+    public static final long WINDOW_MILLIS = 10_000;
+    private static final int WINDOW_BUCKETS = 20;
+    private static final long BUCKET_MILLIS = WINDOW_MILLIS / WINDOW_BUCKETS;
+    private static final double RATE_SMOOTHING = 0.2;
+
+    private long count;
+    private double mean;
+    private double m2;
+    private int min;
+    private int max;
+    private int last;
+
+    private final long[] bucketStart = new long[WINDOW_BUCKETS];
+    private final long[] bucketCount = new long[WINDOW_BUCKETS];
+    private final double[] bucketSum = new double[WINDOW_BUCKETS];
+
+    private long lastTime;
+    private double rate;
+
+    private final Quantile p50 = new Quantile(0.5);
+    private final Quantile p95 = new Quantile(0.95);
+    private final Quantile p99 = new Quantile(0.99);
+
+    public MetricStatistics() {
+        reset();
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value     Value of the metric.
+     * @param timestamp Epoch millis the value was received.
+     */
+    public synchronized void accept(int value, long timestamp) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+
+        long start = timestamp - timestamp % BUCKET_MILLIS;
+        int bucket = (int) ((timestamp / BUCKET_MILLIS) % WINDOW_BUCKETS);
+        if (bucketStart[bucket] != start) {
+            bucketStart[bucket] = start;
+            bucketCount[bucket] = 0;
+            bucketSum[bucket] = 0;
+        }
+        bucketCount[bucket]++;
+        bucketSum[bucket] += value;
+
+        if (count > 1 && timestamp > lastTime) {
+            double instant = (value - last) * 1000.0 / (timestamp - lastTime);
+            rate += (instant - rate) * RATE_SMOOTHING;
+        }
+        if (timestamp > lastTime || count == 1) {
+            lastTime = timestamp;
+        }
+        last = value;
+
+        p50.accept(value);
+        p95.accept(value);
+        p99.accept(value);
+    }
+
+    /**
+     * Clears all accumulated statistics.
+     */
+    public synchronized void reset() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        min = Integer.MAX_VALUE;
+        max = Integer.MIN_VALUE;
+        last = 0;
+        lastTime = 0;
+        rate = 0;
+        for (int i = 0; i < WINDOW_BUCKETS; i++) {
+            bucketStart[i] = -1;
+            bucketCount[i] = 0;
+            bucketSum[i] = 0;
+        }
+        p50.reset();
+        p95.reset();
+        p99.reset();
+    }
+
+    /**
+     * Gets the number of values accepted since the last reset.
+     *
+     * @return Number of values.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Copies the current statistics into a snapshot.
+     *
+     * @param snapshot Snapshot to fill, reused by the caller to avoid allocation.
+     * @param now      Epoch millis used as the end of the window.
+     * @return The filled snapshot.
+     */
+    public synchronized Snapshot snapshot(Snapshot snapshot, long now) {
+        snapshot.count = count;
+        snapshot.last = last;
+        snapshot.min = count == 0 ? 0 : min;
+        snapshot.max = count == 0 ? 0 : max;
+        snapshot.mean = mean;
+        snapshot.variance = count > 1 ? m2 / (count - 1) : 0;
+        snapshot.rate = rate;
+
+        long windowStart = now - WINDOW_MILLIS;
+        long windowCount = 0;
+        double windowSum = 0;
+        for (int i = 0; i < WINDOW_BUCKETS; i++) {
+            if (bucketStart[i] > windowStart && bucketStart[i] <= now) {
+                windowCount += bucketCount[i];
+                windowSum += bucketSum[i];
+            }
+        }
+        snapshot.windowMean = windowCount == 0 ? 0 : windowSum / windowCount;
+        snapshot.p50 = p50.get();
+        snapshot.p95 = p95.get();
+        snapshot.p99 = p99.get();
+        return snapshot;
+    }
+
+    /**
+     * A point-in-time copy of {@link MetricStatistics}.
+     */
+    public static class Snapshot {
+        public long count;
+        public int last;
+        public int min;
+        public int max;
+        public double mean;
+        public double variance;
+        public double windowMean;
+        public double rate;
+        public double p50;
+        public double p95;
+        public double p99;
+
+        public double getStandardDeviation() {
+            return Math.sqrt(variance);
+        }
+    }
+
+    /**
+     * Streaming quantile estimate using the P2 algorithm (Jain and Chlamtac, 1985).
+     * Tracks five markers instead of storing samples.
+     */
+    static class Quantile {
+        private final double p;
+        private final double[] heights = new double[5];
+        private final double[] positions = new double[5];
+        private final double[] desired = new double[5];
+        private final double[] increments = new double[5];
+        private final double[] sorted = new double[5];
+        private int count;
+
+        Quantile(double p) {
+            this.p = p;
+            reset();
+        }
+
+        void reset() {
+            count = 0;
+            for (int i = 0; i < 5; i++) {
+                positions[i] = i + 1;
+            }
+            desired[0] = 1;
+            desired[1] = 1 + 2 * p;
+            desired[2] = 1 + 4 * p;
+            desired[3] = 3 + 2 * p;
+            desired[4] = 5;
+            increments[0] = 0;
+            increments[1] = p / 2;
+            increments[2] = p;
+            increments[3] = (1 + p) / 2;
+            increments[4] = 1;
+        }
+
+        void accept(double x) {
+            if (count < 5) {
+                heights[count++] = x;
+                if (count == 5) {
+                    Arrays.sort(heights);
+                }
+                return;
+            }
+            count++;
+
+            int k;
+            if (x < heights[0]) {
+                heights[0] = x;
+                k = 0;
+            } else if (x >= heights[4]) {
+                heights[4] = x;
+                k = 3;
+            } else {
+                k = 0;
+                while (x >= heights[k + 1]) {
+                    k++;
+                }
+            }
+            for (int i = k + 1; i < 5; i++) {
+                positions[i]++;
+            }
+            for (int i = 0; i < 5; i++) {
+                desired[i] += increments[i];
+            }
+
+            for (int i = 1; i < 4; i++) {
+                double d = desired[i] - positions[i];
+                if ((d >= 1 && positions[i + 1] - positions[i] > 1) || (d <= -1 && positions[i - 1] - positions[i] < -1)) {
+                    int sign = d > 0 ? 1 : -1;
+                    double h = parabolic(i, sign);
+                    if (heights[i - 1] < h && h < heights[i + 1]) {
+                        heights[i] = h;
+                    } else {
+                        heights[i] += sign * (heights[i + sign] - heights[i]) / (positions[i + sign] - positions[i]);
+                    }
+                    positions[i] += sign;
+                }
+            }
+        }
+
+        private double parabolic(int i, int d) {
+            return heights[i] + d / (positions[i + 1] - positions[i - 1])
+                                * ((positions[i] - positions[i - 1] + d) * (heights[i + 1] - heights[i]) / (positions[i + 1] - positions[i])
+                                   + (positions[i + 1] - positions[i] - d) * (heights[i] - heights[i - 1]) / (positions[i] - positions[i - 1]));
+        }
+
+        double get() {
+            if (count == 0) {
+                return 0;
+            }
+            if (count < 5) {
+                System.arraycopy(heights, 0, sorted, 0, count);
+                Arrays.sort(sorted, 0, count);
+                return sorted[Math.min(count - 1, (int) Math.round(p * (count - 1)))];
+            }
+            return heights[2];
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.iit.dashboard2022.ecu;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A subscription to the values of a {@link Metric}, created by {@link Metric#subscribe(IntConsumer, Options)}.
+ * <p>
+ * Values can be delivered on the thread updating the metric, normally the ECU thread, or handed to
+ * any executor such as the UI thread or {@link #BACKGROUND}. They can be filtered by a deadband and
+ * limited by a throttle or a debounce, and deliveries waiting on a busy executor can be conflated so
+ * only the latest value is delivered. Filtering and rate limiting are done on the updating thread
+ * without allocating, so a subscriber that only wants a few values per second costs the ECU thread
+ * almost nothing. Handing a value to an executor allocates a task per delivery unless
+ * {@link Options#latestOnly()} is set.
+ * <p>
+ * Deliveries are handed over in the order values were accepted. A delivery overtaken by a newer
+ * one, such as an immediate delivery racing the trailing delivery of a throttle, is dropped, so
+ * the subscriber always ends on the latest value.
+ * <p>
+ * Dispose the subscription to stop deliveries and release the listener.
+ */
+public final class MetricSubscription implements AutoCloseable {
+    /**
+     * Delivers on the thread that updated the metric. Values held back by a throttle or debounce
+     * are delivered on the subscription timer thread instead.
+     */
+    public static final Executor DIRECT = Runnable::run;
+    /**
+     * Delivers on a shared background thread, in order.
+     */
+    public static final Executor BACKGROUND = Executors.newSingleThreadExecutor(daemon("Metric-Delivery"));
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(daemon("Metric-Timer"));
+
+    private final Metric metric;
+    private final IntConsumer listener;
+    private final Executor executor;
+    private final long throttleNanos;
+    private final long debounceNanos;
+    private final int deadband;
+    private final boolean latestOnly;
+    private final Consumer<Metric> onUpdate = this::offer;
+    private final Runnable onTimer = this::onTimer;
+    private final Runnable deliverLatest = this::deliverLatest;
+    private final AtomicBoolean deliveryPending = new AtomicBoolean();
+    private final Object order = new Object();
+    private volatile boolean disposed = false;
+    private volatile int latest;
+
+    // Guarded by this
+    private boolean accepted = false;
+    private int lastAccepted;
+    private long lastOffer;
+    private long lastDispatch;
+    private boolean timerPending = false;
+    private long acceptedSeq = 0;
+
+    // Guarded by order
+    private long dispatchedSeq = 0;
+
+    MetricSubscription(Metric metric, IntConsumer listener, Options options) {
+        this.metric = metric;
+        this.listener = listener;
+        this.executor = options.executor;
+        this.throttleNanos = options.throttleNanos;
+        this.debounceNanos = options.debounceNanos;
+        this.deadband = options.deadband;
+        this.latestOnly = options.latestOnly;
+        this.lastDispatch = System.nanoTime() - throttleNanos;
+        metric.addMessageListener(onUpdate, options.updateMethod);
+    }
+
+    /**
+     * Creates the default options: deliver every change of value on the updating thread.
+     *
+     * @return {@link Options}
+     */
+    public static Options options() {
+        return new Options();
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    /**
+     * Stops deliveries and removes the subscription from its metric. Deliveries already running may still complete.
+     */
+    public void dispose() {
+        disposed = true;
+        metric.removeMessageListener(onUpdate);
+    }
+
+    @Override
+    public void close() {
+        dispose();
+    }
+
+    private void offer(Metric metric) {
+        if (disposed) {
+            return;
+        }
+        int value = metric.getValue();
+        long now = System.nanoTime();
+        long seq;
+        synchronized (this) {
+            if (deadband > 0 && accepted && Math.abs((long) value - lastAccepted) < deadband) {
+                return;
+            }
+            accepted = true;
+            seq = ++acceptedSeq;
+            lastAccepted = value;
+            latest = value;
+            lastOffer = now;
+            if (timerPending) {
+                // The pending timer delivers the latest value
+                return;
+            }
+            if (debounceNanos > 0) {
+                schedule(debounceNanos);
+                return;
+            }
+            if (now - lastDispatch < throttleNanos) {
+                schedule(lastDispatch + throttleNanos - now);
+                return;
+            }
+            lastDispatch = now;
+        }
+        dispatch(value, seq);
+    }
+
+    private void onTimer() {
+        int value;
+        long seq;
+        synchronized (this) {
+            timerPending = false;
+            if (disposed) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - lastOffer < debounceNanos) {
+                schedule(lastOffer + debounceNanos - now);
+                return;
+            }
+            lastDispatch = now;
+            value = latest;
+            seq = acceptedSeq;
+        }
+        dispatch(value, seq);
+    }
+
+    private void schedule(long delayNanos) {
+        timerPending = true;
+        TIMER.schedule(onTimer, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Hands a value over in acceptance order, dropping it if a newer value was already handed over.
+     */
+    private void dispatch(int value, long seq) {
+        synchronized (order) {
+            if (seq <= dispatchedSeq) {
+                return;
+            }
+            dispatchedSeq = seq;
+            if (executor == DIRECT) {
+                deliver(value);
+            } else if (latestOnly) {
+                if (deliveryPending.compareAndSet(false, true)) {
+                    executor.execute(deliverLatest);
+                }
+            } else {
+                executor.execute(() -> deliver(value));
+            }
+        }
+    }
+
+    private void deliverLatest() {
+        deliveryPending.set(false);
+        deliver(latest);
+    }
+
+    private void deliver(int value) {
+        if (!disposed) {
+            listener.accept(value);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Options of a subscription. They are copied when subscribing, so one instance can be reused.
+     */
+    public static final class Options {
+        private Metric.UpdateMethod updateMethod = Metric.UpdateMethod.ON_VALUE_CHANGE;
+        private Executor executor = DIRECT;
+        private long throttleNanos = 0;
+        private long debounceNanos = 0;
+        private int deadband = 0;
+        private boolean latestOnly = false;
+
+        private Options() {
+        }
+
+        /**
+         * Offers every value received, not only changes.
+         */
+        public Options onReceive() {
+            updateMethod = Metric.UpdateMethod.ON_RECEIVE;
+            return this;
+        }
+
+        /**
+         * Sets the executor values are delivered on, such as {@link #DIRECT}, {@link #BACKGROUND} or the UI thread.
+         */
+        public Options on(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Delivers at most one value per interval. The first value is delivered right away and the
+         * latest value offered during the interval is delivered at its end. Replaces any debounce.
+         */
+        public Options throttle(long interval, TimeUnit unit) {
+            throttleNanos = unit.toNanos(interval);
+            debounceNanos = 0;
+            return this;
+        }
+
+        /**
+         * Delivers at most the given number of values per second, see {@link #throttle(long, TimeUnit)}.
+         */
+        public Options maxRate(double perSecond) {
+            if (!(perSecond > 0)) {
+                throw new IllegalArgumentException("Rate must be positive: " + perSecond);
+            }
+            return throttle((long) (1e9 / perSecond), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Delivers the latest value once no value has been offered for the given time. Replaces any throttle.
+         */
+        public Options debounce(long quietTime, TimeUnit unit) {
+            debounceNanos = unit.toNanos(quietTime);
+            throttleNanos = 0;
+            return this;
+        }
+
+        /**
+         * Ignores values closer than the given amount to the last value let through.
+         */
+        public Options deadband(int threshold) {
+            deadband = threshold;
+            return this;
+        }
+
+        /**
+         * Keeps at most one delivery waiting on the executor, which delivers the latest value once it
+         * runs, instead of queueing every value when the executor falls behind.
+         */
+        public Options latestOnly() {
+            latestOnly = true;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.iit.dashboard2022.ecu;
+
+import com.iit.dashboard2022.diagnostics.Counter;
+
+/**
+ * Splits raw ECU data into id / value frames.
+ * <p>
+ * A frame is two little endian ints, the metric ID followed by its value. Frames are read straight
+ * out of the array without wrapping it, so decoding a chunk does not allocate. A read can end partway
+ * through a frame, so trailing bytes that do not make up a whole frame are kept and completed by the
+ * next chunk. They are only dropped and counted when the stream is {@link #reset()}.
+ * <p>
+ * A decoder keeps state between chunks and must only be used by one thread.
+ */
+public class PayloadDecoder {
+    /**
+     * Size of one id / value pair on the wire.
+     */
+    public static final int FRAME_BYTES = 8;
+
+    private final FrameHandler handler;
+    private final byte[] partial = new byte[FRAME_BYTES];
+    private int partialBytes = 0;
+
+    public PayloadDecoder(FrameHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Decodes every whole frame of a chunk, in order, starting with the frame left incomplete by the previous chunk.
+     *
+     * @param data Raw data as received from the ECU.
+     * @return Number of frames decoded.
+     */
+    public int decode(byte[] data) {
+        int frames = 0;
+        int start = 0;
+        if (partialBytes > 0) {
+            start = Math.min(FRAME_BYTES - partialBytes, data.length);
+            System.arraycopy(data, 0, partial, partialBytes, start);
+            partialBytes += start;
+            if (partialBytes < FRAME_BYTES) {
+                return 0;
+            }
+            handler.onFrame(readInt(partial, 0), readInt(partial, 4));
+            partialBytes = 0;
+            frames++;
+        }
+        int end = data.length - (data.length - start) % FRAME_BYTES;
+        for (int i = start; i < end; i += FRAME_BYTES) {
+            handler.onFrame(readInt(data, i), readInt(data, i + 4));
+        }
+        partialBytes = data.length - end;
+        System.arraycopy(data, end, partial, 0, partialBytes);
+        return frames + (end - start) / FRAME_BYTES;
+    }
+
+    /**
+     * Starts a new stream, such as after the serial connection was reopened. Bytes of an incomplete
+     * frame can no longer be completed, so they are dropped and counted.
+     */
+    public void reset() {
+        if (partialBytes > 0) {
+            Counter.ECU_DROPPED_BYTES.add(partialBytes);
+            partialBytes = 0;
+        }
+    }
+
+    /**
+     * Gets the number of bytes held for a frame that the next chunk will complete.
+     *
+     * @return Bytes of the incomplete frame.
+     */
+    public int getPartialBytes() {
+        return partialBytes;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xFF)
+                | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16
+                | (data[offset + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * Receiver of decoded frames.
+     */
+    public interface FrameHandler {
+        void onFrame(int id, int value);
+    }
+}
@@ -0,0 +1,380 @@
+package com.iit.dashboard2022.ecu;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.iit.dashboard2022.logging.LogFile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Replays a recorded session through the ECU decode and dispatch path.
+ * <p>
+ * Samples are read from the session's statistics file, re-encoded as the little endian id / value
+ * frames the ECU sends over serial and handed to a sink, normally {@link ECUPipeline#submitReplay(byte[])}
+ * so the replayed data is neither logged as a new session nor sent over telemetry.
+ * Samples that are due at the same time are packed into one chunk, like a USB read would.
+ * Playback follows the recorded timestamps scaled by the speed, or runs as fast as the sink keeps
+ * up with {@link #MAX_SPEED}, which makes a replay a throughput benchmark of the whole pipeline.
+ * <p>
+ * IDs are translated through the session's statistics map by metric name, so sessions recorded
+ * with a different ID assignment replay onto the right metrics. Derived metrics are skipped, as
+ * the dashboard computes them again from their inputs.
+ */
+@Slf4j
+public class SessionReplay {
+    /**
+     * Speed that ignores recorded timing and replays as fast as possible.
+     */
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+    private static final int FRAME_BYTES = 8;
+    private static final int MAX_CHUNK_FRAMES = 64;
+    private static final int MAX_BACKLOG = 256;
+    private static final int READ_BUFFER = 1 << 16;
+    private static final Gson GSON = new Gson();
+
+    private final File statsFile;
+    private final File statsMapFile;
+    private final Consumer<byte[]> sink;
+    private final IntSupplier backlog;
+    private volatile double speed = 1;
+    private Consumer<SessionReplay> completionListener;
+    /**
+     * The run in progress, null when stopped.
+     */
+    private volatile Run current;
+    /**
+     * The most recently started run, whose totals are reported.
+     */
+    private volatile Run last = new Run();
+
+    /**
+     * Creates a replay of a session into an ECU pipeline.
+     *
+     * @param logFile  Recorded session.
+     * @param pipeline Pipeline to feed.
+     */
+    public SessionReplay(LogFile logFile, ECUPipeline pipeline) {
+        this(logFile.getStatsFile(), logFile.getStatsMapFile(), pipeline::submitReplay, pipeline::getPendingChunks);
+    }
+
+    /**
+     * Creates a replay of a statistics file into any sink of raw ECU data.
+     *
+     * @param statsFile    Statistics file, one "time id value" line per sample.
+     * @param statsMapFile Statistics map of the session, or null to use IDs as recorded.
+     * @param sink         Receiver of raw chunks, called on the replay thread.
+     * @param backlog      Number of chunks the sink has not processed yet. Replay waits while it is too large.
+     */
+    public SessionReplay(File statsFile, File statsMapFile, Consumer<byte[]> sink, IntSupplier backlog) {
+        this.statsFile = statsFile;
+        this.statsMapFile = statsMapFile;
+        this.sink = sink;
+        this.backlog = backlog;
+    }
+
+    /**
+     * Sets the playback speed. Can be changed while replaying.
+     *
+     * @param speed Multiple of real time, or {@link #MAX_SPEED}.
+     */
+    public void setSpeed(double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be positive: " + speed);
+        }
+        this.speed = speed;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets a listener called on the replay thread once the replay finishes or is stopped.
+     *
+     * @param listener Completion listener.
+     */
+    public void setCompletionListener(Consumer<SessionReplay> listener) {
+        this.completionListener = listener;
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    /**
+     * Starts replaying on a background thread, from the start of the session.
+     */
+    public synchronized void start() {
+        if (current != null) {
+            return;
+        }
+        Run run = new Run();
+        run.thread = new Thread(() -> run(run), "Session-Replay");
+        run.thread.setDaemon(true);
+        current = run;
+        last = run;
+        run.thread.start();
+    }
+
+    /**
+     * Stops replaying. Chunks already handed to the sink are still processed. A stopped run never
+     * hands over another chunk, even if the replay is started again before its thread ends.
+     */
+    public synchronized void stop() {
+        Run run = current;
+        if (run != null) {
+            current = null;
+            run.active = false;
+            run.thread.interrupt();
+        }
+    }
+
+    public long getSamples() {
+        return last.samples;
+    }
+
+    public long getSkipped() {
+        return last.skipped;
+    }
+
+    public long getChunks() {
+        return last.chunks;
+    }
+
+    public long getElapsedNanos() {
+        return last.elapsedNanos;
+    }
+
+    public long getRecordedMillis() {
+        return last.recordedMillis;
+    }
+
+    /**
+     * Gets the replay rate so far.
+     *
+     * @return Samples replayed per second of wall time.
+     */
+    public double getSamplesPerSecond() {
+        Run run = last;
+        long nanos = run.elapsedNanos;
+        return nanos == 0 ? 0 : run.samples * 1e9 / nanos;
+    }
+
+    public String summary() {
+        Run run = last;
+        long nanos = run.elapsedNanos;
+        return String.format(Locale.US, "%d samples (%d skipped) in %d chunks, %.1fs recorded replayed in %.2fs, %.0f samples/s",
+                run.samples, run.skipped, run.chunks, run.recordedMillis / 1000.0, nanos / 1e9, nanos == 0 ? 0 : run.samples * 1e9 / nanos);
+    }
+
+    private void run(Run run) {
+        long start = System.nanoTime();
+        run.buffer = new byte[READ_BUFFER];
+        try (InputStream in = new FileInputStream(statsFile)) {
+            replay(run, in, loadIdMap(), start);
+        } catch (IOException e) {
+            log.error("Failed to replay " + statsFile, e);
+        } finally {
+            run.elapsedNanos = System.nanoTime() - start;
+            synchronized (this) {
+                if (current == run) {
+                    current = null;
+                }
+            }
+            log.info("Replay of {} finished: {}", statsFile, summary());
+            if (completionListener != null) {
+                completionListener.accept(this);
+            }
+        }
+    }
+
+    private void replay(Run run, InputStream in, int[] idMap, long start) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(MAX_CHUNK_FRAMES * FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long[] fields = new long[3];
+        long firstTime = -1;
+        long replayStart = start;
+        double replaySpeed = speed;
+        while (run.active && readLine(run, in, fields)) {
+            long time = fields[0];
+            if (firstTime < 0) {
+                firstTime = time;
+            }
+            if (speed != replaySpeed) {
+                // Re-anchor so a speed change applies from the current position
+                replaySpeed = speed;
+                replayStart = System.nanoTime() - (long) ((time - firstTime) * 1e6 / replaySpeed);
+            }
+            run.recordedMillis = time - firstTime;
+            int id = mapId(idMap, fields[1]);
+            if (id < 0) {
+                run.skipped++;
+                continue;
+            }
+            if (replaySpeed != MAX_SPEED) {
+                long due = replayStart + (long) ((time - firstTime) * 1e6 / replaySpeed);
+                if (due > System.nanoTime() && chunk.position() > 0) {
+                    flush(run, chunk);
+                }
+                waitUntil(run, due);
+            }
+            if (!chunk.hasRemaining()) {
+                flush(run, chunk);
+            }
+            chunk.putInt(id).putInt((int) fields[2]);
+            run.samples++;
+            run.elapsedNanos = System.nanoTime() - start;
+        }
+        if (chunk.position() > 0) {
+            flush(run, chunk);
+        }
+    }
+
+    private static int mapId(int[] idMap, long recorded) {
+        if (idMap.length == 0) {
+            return (int) recorded;
+        }
+        return recorded >= 0 && recorded < idMap.length ? idMap[(int) recorded] : -1;
+    }
+
+    private void flush(Run run, ByteBuffer chunk) {
+        while (run.active && backlog.getAsInt() > MAX_BACKLOG) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        if (run.active) {
+            sink.accept(Arrays.copyOf(chunk.array(), chunk.position()));
+            run.chunks++;
+        }
+        chunk.clear();
+    }
+
+    private void waitUntil(Run run, long due) {
+        long wait;
+        while (run.active && (wait = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    /**
+     * Reads one "time id value" line without allocating.
+     * Malformed lines, such as a torn last line, are skipped.
+     *
+     * @return False at the end of the stream.
+     */
+    private boolean readLine(Run run, InputStream in, long[] fields) throws IOException {
+        while (true) {
+            int field = 0;
+            long number = 0;
+            boolean digits = false, negative = false, valid = true;
+            int c;
+            while ((c = read(run, in)) != -1 && c != '\n') {
+                if (c >= '0' && c <= '9') {
+                    number = number * 10 + (c - '0');
+                    digits = true;
+                } else if (c == '-' && !digits) {
+                    negative = true;
+                } else if (c == ' ' && digits && field < 2) {
+                    fields[field++] = negative ? -number : number;
+                    number = 0;
+                    digits = negative = false;
+                } else if (c != '\r') {
+                    valid = false;
+                }
+            }
+            if (valid && digits && field == 2) {
+                fields[2] = negative ? -number : number;
+                return true;
+            }
+            if (c == -1) {
+                return false;
+            }
+            run.skipped++;
+        }
+    }
+
+    private int read(Run run, InputStream in) throws IOException {
+        if (run.position == run.limit) {
+            run.limit = in.read(run.buffer, 0, run.buffer.length);
+            run.position = 0;
+            if (run.limit <= 0) {
+                run.limit = 0;
+                return -1;
+            }
+        }
+        return run.buffer[run.position++];
+    }
+
+    /**
+     * Maps recorded IDs to current ones through the session's statistics map.
+     *
+     * @return Current ID indexed by recorded ID, -1 for skipped IDs, or an empty array to use IDs as recorded.
+     */
+    private int[] loadIdMap() {
+        if (statsMapFile == null || !statsMapFile.isFile()) {
+            return new int[0];
+        }
+        Map<String, String> names;
+        try (Reader reader = new FileReader(statsMapFile)) {
+            names = GSON.fromJson(reader, new TypeToken<HashMap<String, String>>() {
+            }.getType());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read statistics map " + statsMapFile + ", replaying IDs as recorded", e);
+            return new int[0];
+        }
+        if (names == null || names.isEmpty()) {
+            return new int[0];
+        }
+        int max = 0;
+        for (String id : names.keySet()) {
+            try {
+                max = Math.max(max, Integer.parseInt(id));
+            } catch (NumberFormatException ignored) {
+                // Not an ID, skipped below
+            }
+        }
+        int[] map = new int[max + 1];
+        Arrays.fill(map, -1);
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            try {
+                Metric metric = Metric.valueOf(entry.getValue());
+                if (!metric.isDerived()) {
+                    map[Integer.parseInt(entry.getKey())] = metric.getId();
+                }
+            } catch (IllegalArgumentException ignored) {
+                // Metric no longer exists or the ID is malformed
+            }
+        }
+        return map;
+    }
+
+    /**
+     * State of one run of the replay thread, so a stopped run never shares its reader or totals with a later start.
+     */
+    private static final class Run {
+        private byte[] buffer;
+        private int position = 0, limit = 0;
+        private volatile boolean active = true;
+        private Thread thread;
+
+        private volatile long samples = 0;
+        private volatile long skipped = 0;
+        private volatile long chunks = 0;
+        private volatile long elapsedNanos = 0;
+        private volatile long recordedMillis = 0;
+    }
+}
@@ -0,0 +1,380 @@
+package com.iit.dashboard2022.ecu;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Generates synthetic ECU traffic for load testing without the car.
+ * <p>
+ * Every non derived {@link Metric} is a channel with its own rate and {@link ValueModel}.
+ * Frames are encoded exactly like the ECU sends them and handed to a sink, normally
+ * {@link ECUPipeline#submitGenerated(byte[])} so generated values are never logged or sent over
+ * telemetry, in chunks like a USB read would deliver. Rates can be scaled as a
+ * whole, including far past what the serial line can carry, and periodic bursts multiply them for a
+ * short time to mimic the ECU flushing its buffers.
+ * <p>
+ * With backpressure on, the generator waits while the sink is backed up and reports the time it
+ * spent waiting, which shows where the pipeline saturates. With it off, the sink's queue is left
+ * to grow.
+ */
+@Slf4j
+public class TrafficGenerator {
+    /**
+     * Baud rate of the ECU serial link.
+     */
+    public static final int LINE_BAUD = 115200;
+    /**
+     * Frames per second the serial link carries at most, with 8 data bits, 2 stop bits and a start bit per byte.
+     */
+    public static final double LINE_RATE_FRAMES = LINE_BAUD / 11.0 / 8;
+    private static final Metric[] METRICS = Metric.values();
+    private static final int FRAME_BYTES = 8;
+    private static final int MAX_CHUNK_FRAMES = 64;
+    private static final int MAX_BACKLOG = 256;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Consumer<byte[]> sink;
+    private final IntSupplier backlog;
+    private final double[] rates = new double[METRICS.length];
+    private final ValueModel[] models = new ValueModel[METRICS.length];
+    private final double[] owed = new double[METRICS.length];
+    private final Random random = new Random();
+    private final ByteBuffer chunk = ByteBuffer.allocate(MAX_CHUNK_FRAMES * FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private volatile double multiplier = 1;
+    private volatile double burstFactor = 1;
+    private volatile double burstSeconds = 0;
+    private volatile double burstPeriodSeconds = 0;
+    private volatile boolean backpressure = true;
+    private volatile boolean running = false;
+    private Thread thread;
+
+    @Getter
+    private volatile long frames = 0;
+    @Getter
+    private volatile long chunks = 0;
+    @Getter
+    private volatile long elapsedNanos = 0;
+    @Getter
+    private volatile long stalledNanos = 0;
+
+    /**
+     * Creates a generator feeding an ECU pipeline, with the default profile of {@link #useDefaultProfile()}.
+     *
+     * @param pipeline Pipeline to feed.
+     */
+    public TrafficGenerator(ECUPipeline pipeline) {
+        this(pipeline::submitGenerated, pipeline::getPendingChunks);
+    }
+
+    /**
+     * Creates a generator feeding any sink of raw ECU data, with the default profile of {@link #useDefaultProfile()}.
+     *
+     * @param sink    Receiver of raw chunks, called on the generator thread.
+     * @param backlog Number of chunks the sink has not processed yet.
+     */
+    public TrafficGenerator(Consumer<byte[]> sink, IntSupplier backlog) {
+        this.sink = sink;
+        this.backlog = backlog;
+        useDefaultProfile();
+    }
+
+    /**
+     * Configures every metric with a rate and value model resembling the car on track,
+     * adding up to about the serial line rate at a multiplier of one.
+     */
+    public synchronized void useDefaultProfile() {
+        Arrays.fill(rates, 0);
+        Arrays.fill(models, null);
+        set(Metric.SPEEDOMETER, 100, ValueModel.driveCycle(0, 70));
+        set(Metric.ACC_1, 100, ValueModel.driveCycle(0, 100));
+        set(Metric.ACC_2, 100, ValueModel.driveCycle(0, 100));
+        set(Metric.BRAKE, 100, ValueModel.step(0, 100, 20));
+        set(Metric.STEER, 50, ValueModel.noise(0, 45));
+        set(Metric.MC0_VOLTAGE, 100, ValueModel.noise(300, 5));
+        set(Metric.MC1_VOLTAGE, 100, ValueModel.noise(300, 5));
+        set(Metric.MC0_CURRENT, 100, ValueModel.driveCycle(0, 200));
+        set(Metric.MC1_CURRENT, 100, ValueModel.driveCycle(0, 200));
+        set(Metric.MC0_BOARD_TEMP, 10, ValueModel.ramp(30, 60, 600));
+        set(Metric.MC1_BOARD_TEMP, 10, ValueModel.ramp(30, 60, 600));
+        set(Metric.MC0_MOTOR_TEMP, 10, ValueModel.ramp(30, 90, 600));
+        set(Metric.MC1_MOTOR_TEMP, 10, ValueModel.ramp(30, 90, 600));
+        set(Metric.POWER_GAUGE, 50, ValueModel.driveCycle(0, 80));
+        set(Metric.SOC, 1, ValueModel.ramp(100, 0, 1800));
+        set(Metric.STACK_VOLTAGE, 50, ValueModel.noise(300, 10));
+        set(Metric.STACK_CURRENT, 50, ValueModel.driveCycle(0, 400));
+        set(Metric.STACK_HIGH_TEMP, 5, ValueModel.ramp(25, 55, 900));
+        set(Metric.STACK_LOW_TEMP, 5, ValueModel.ramp(20, 40, 900));
+        set(Metric.BMS_DISCHARGE_LIM, 5, ValueModel.constant(250));
+        set(Metric.BMS_CHARGE_LIM, 5, ValueModel.constant(50));
+        set(Metric.FAULT, 0.2, ValueModel.step(0, 1, 60));
+        set(Metric.LAG, 10, ValueModel.noise(5, 5));
+        set(Metric.BEAT, 10, ValueModel.ramp(0, 255, 25.6));
+        set(Metric.START_LIGHT, 1, ValueModel.step(0, 1, 10));
+        set(Metric.STATE, 1, ValueModel.constant(State.DRIVING.getId()));
+    }
+
+    /**
+     * Configures one metric.
+     *
+     * @param metric Metric to generate. Derived metrics are rejected, as the dashboard computes them.
+     * @param rate   Frames per second at a multiplier of one, or zero to not generate the metric.
+     * @param model  Values to generate.
+     */
+    public synchronized void set(Metric metric, double rate, ValueModel model) {
+        if (metric.isDerived()) {
+            throw new IllegalArgumentException(metric + " is derived");
+        }
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate must not be negative: " + rate);
+        }
+        rates[metric.ordinal()] = rate;
+        models[metric.ordinal()] = model;
+    }
+
+    /**
+     * Scales all rates.
+     *
+     * @param multiplier Factor applied to every configured rate.
+     */
+    public void setRateMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Scales all rates so the total is a multiple of the serial line rate.
+     *
+     * @param multiple Multiple of {@link #LINE_RATE_FRAMES}.
+     */
+    public synchronized void setLineRateMultiple(double multiple) {
+        double total = getBaseRate();
+        multiplier = total == 0 ? 0 : multiple * LINE_RATE_FRAMES / total;
+    }
+
+    /**
+     * Gets the total rate of all metrics at a multiplier of one.
+     *
+     * @return Frames per second.
+     */
+    public synchronized double getBaseRate() {
+        double total = 0;
+        for (double rate : rates) {
+            total += rate;
+        }
+        return total;
+    }
+
+    /**
+     * Periodically multiplies all rates for a short time.
+     *
+     * @param factor        Rate multiplier during a burst, or 1 for no bursts.
+     * @param seconds       Length of a burst.
+     * @param periodSeconds Time from the start of one burst to the next.
+     */
+    public void setBurst(double factor, double seconds, double periodSeconds) {
+        this.burstFactor = factor;
+        this.burstSeconds = seconds;
+        this.burstPeriodSeconds = periodSeconds;
+    }
+
+    /**
+     * Sets whether to wait while the sink is backed up.
+     *
+     * @param backpressure False to let the sink's queue grow without bound.
+     */
+    public void setBackpressure(boolean backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts generating on a background thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        frames = chunks = elapsedNanos = stalledNanos = 0;
+        Arrays.fill(owed, 0);
+        thread = new Thread(this::run, "Traffic-Generator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops generating.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Gets the rate achieved so far.
+     *
+     * @return Frames per second of wall time.
+     */
+    public double getFramesPerSecond() {
+        long nanos = elapsedNanos;
+        return nanos == 0 ? 0 : frames * 1e9 / nanos;
+    }
+
+    public String summary() {
+        double fps = getFramesPerSecond();
+        return String.format(Locale.US, "%d frames in %d chunks over %.1fs, %.0f frames/s (%.1fx line rate), stalled %.1fs",
+                frames, chunks, elapsedNanos / 1e9, fps, fps / LINE_RATE_FRAMES, stalledNanos / 1e9);
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        long last = start;
+        try {
+            while (running) {
+                LockSupport.parkNanos(TICK_NANOS);
+                long now = System.nanoTime();
+                double seconds = (now - start) / 1e9;
+                generate(seconds, (now - last) / 1e9 * multiplier * burst(seconds));
+                last = now;
+                if (backpressure && backlog.getAsInt() > MAX_BACKLOG) {
+                    // Time spent waiting is not made up afterwards, the sink could not take it
+                    while (running && backlog.getAsInt() > MAX_BACKLOG) {
+                        LockSupport.parkNanos(TICK_NANOS);
+                    }
+                    long resumed = System.nanoTime();
+                    stalledNanos += resumed - last;
+                    last = resumed;
+                }
+                elapsedNanos = System.nanoTime() - start;
+            }
+        } catch (RuntimeException e) {
+            log.error("Traffic generator failed", e);
+        } finally {
+            running = false;
+            elapsedNanos = System.nanoTime() - start;
+            log.info("Traffic generator stopped: {}", summary());
+        }
+    }
+
+    private double burst(double seconds) {
+        double period = burstPeriodSeconds;
+        if (burstFactor == 1 || period <= 0) {
+            return 1;
+        }
+        return seconds % period < burstSeconds ? burstFactor : 1;
+    }
+
+    private synchronized void generate(double seconds, double scale) {
+        for (int i = 0; i < METRICS.length; i++) {
+            ValueModel model = models[i];
+            if (model == null || rates[i] == 0) {
+                continue;
+            }
+            owed[i] += rates[i] * scale;
+            int count = (int) owed[i];
+            owed[i] -= count;
+            int id = METRICS[i].getId();
+            for (int n = 0; n < count; n++) {
+                if (!chunk.hasRemaining()) {
+                    flush();
+                }
+                chunk.putInt(id).putInt(model.value(seconds, random));
+            }
+            frames += count;
+        }
+        if (chunk.position() > 0) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        sink.accept(Arrays.copyOf(chunk.array(), chunk.position()));
+        chunk.clear();
+        chunks++;
+    }
+
+    /**
+     * Produces the value of a metric over time.
+     */
+    public interface ValueModel {
+        /**
+         * Gets the value at a point in time.
+         *
+         * @param seconds Seconds since the generator started.
+         * @param random  Random source of the generator.
+         * @return Value to send.
+         */
+        int value(double seconds, Random random);
+
+        static ValueModel constant(int value) {
+            return (t, r) -> value;
+        }
+
+        /**
+         * Rises linearly from one value to another, then starts over.
+         */
+        static ValueModel ramp(int from, int to, double periodSeconds) {
+            return (t, r) -> (int) Math.round(from + (to - from) * (t % periodSeconds / periodSeconds));
+        }
+
+        /**
+         * Uniform noise around a mean.
+         */
+        static ValueModel noise(int mean, int amplitude) {
+            return (t, r) -> mean + (amplitude == 0 ? 0 : r.nextInt(2 * amplitude + 1) - amplitude);
+        }
+
+        /**
+         * Alternates between two values, each held for half the period.
+         */
+        static ValueModel step(int low, int high, double periodSeconds) {
+            return (t, r) -> t % periodSeconds < periodSeconds / 2 ? low : high;
+        }
+
+        /**
+         * Follows a lap-like profile of idling, accelerating, cruising and braking, with a little noise.
+         */
+        static ValueModel driveCycle(int min, int max) {
+            return (t, r) -> {
+                double level = DriveCycle.level(t) + (r.nextDouble() - 0.5) * 0.02;
+                return (int) Math.round(min + (max - min) * Math.max(0, Math.min(1, level)));
+            };
+        }
+    }
+
+    /**
+     * A normalized drive cycle, as time and level breakpoints interpolated linearly and repeated.
+     */
+    private static final class DriveCycle {
+        private static final double[] TIMES = { 0, 5, 15, 35, 40, 50, 70, 80, 85, 95, 110, 120 };
+        private static final double[] LEVELS = { 0, 0, 1, 0.95, 0.3, 0.8, 0.85, 0, 0, 0.6, 0, 0 };
+        private static final double LENGTH = TIMES[TIMES.length - 1];
+
+        private static double level(double seconds) {
+            double t = seconds % LENGTH;
+            for (int i = 1; i < TIMES.length; i++) {
+                if (t <= TIMES[i]) {
+                    double fraction = (t - TIMES[i - 1]) / (TIMES[i] - TIMES[i - 1]);
+                    return LEVELS[i - 1] + (LEVELS[i] - LEVELS[i - 1]) * fraction;
+                }
+            }
+            return LEVELS[LEVELS.length - 1];
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.iit.dashboard2022.logging;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes exported rows in a compact columnar format, in the spirit of Parquet row groups.
+ * <p>
+ * Rows are buffered in groups of {@link #GROUP_ROWS}, and each group is written column by column,
+ * so a reader interested in a few metrics can skip the others. Forward-filled values rarely change,
+ * so each column chunk is delta encoded as zigzag varints and is mostly one byte per row.
+ * <p>
+ * Layout, big endian as written by {@link DataOutputStream}:
+ * <pre>
+ * int    magic "IITC"
+ * int    version (1)
+ * long   start time, epoch millis
+ * double period, millis; row i is at start + i * period
+ * int    column count, then each column name as modified UTF-8
+ * groups, each:
+ *   int  row count, 0 marks the end of the file
+ *   per column:
+ *     int     chunk length in bytes
+ *     varint  rows without a value yet, at the start of the chunk
+ *     varints the remaining values, the first as is and the rest as deltas, zigzag encoded
+ * </pre>
+ */
+public class ColumnarRowWriter implements SessionExporter.RowWriter {
+    public static final int MAGIC = 0x49495443;
+    public static final int VERSION = 1;
+    public static final int GROUP_ROWS = 4096;
+
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(GROUP_ROWS * 2);
+    private int[][] group;
+    private int[] missing;
+    private int rows = 0;
+
+    public ColumnarRowWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    }
+
+    @Override
+    public void begin(long startTime, double periodMillis, List<String> columns) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(startTime);
+        out.writeDouble(periodMillis);
+        out.writeInt(columns.size());
+        for (String column : columns) {
+            out.writeUTF(column);
+        }
+        group = new int[columns.size()][GROUP_ROWS];
+        missing = new int[columns.size()];
+    }
+
+    @Override
+    public void row(long time, int[] values, boolean[] present) throws IOException {
+        for (int column = 0; column < values.length; column++) {
+            if (present[column]) {
+                group[column][rows] = values[column];
+            } else {
+                missing[column]++;
+            }
+        }
+        if (++rows == GROUP_ROWS) {
+            flushGroup();
+        }
+    }
+
+    private void flushGroup() throws IOException {
+        out.writeInt(rows);
+        for (int column = 0; column < group.length; column++) {
+            chunk.reset();
+            int[] values = group[column];
+            writeVarint(missing[column]);
+            long previous = 0;
+            for (int row = missing[column]; row < rows; row++) {
+                long value = values[row];
+                long delta = value - previous;
+                writeVarint((delta << 1) ^ (delta >> 63));
+                previous = value;
+            }
+            out.writeInt(chunk.size());
+            chunk.writeTo(out);
+            missing[column] = 0;
+        }
+        rows = 0;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            chunk.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        chunk.write((int) value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (group != null) {
+                if (rows > 0) {
+                    flushGroup();
+                }
+                out.writeInt(0);
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.iit.dashboard2022.logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes exported rows as CSV: a header of "time" and the column names, then one line per row
+ * with the epoch millis of the row and the value of each column, empty until a column has a value.
+ */
+public class CsvRowWriter implements SessionExporter.RowWriter {
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(256);
+
+    public CsvRowWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    @Override
+    public void begin(long startTime, double periodMillis, List<String> columns) throws IOException {
+        line.setLength(0);
+        line.append("time");
+        for (String column : columns) {
+            line.append(',').append(column);
+        }
+        writer.write(line.append('\n').toString());
+    }
+
+    @Override
+    public void row(long time, int[] values, boolean[] present) throws IOException {
+        line.setLength(0);
+        line.append(time);
+        for (int i = 0; i < values.length; i++) {
+            line.append(',');
+            if (present[i]) {
+                line.append(values[i]);
+            }
+        }
+        line.append('\n');
+        writer.append(line);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
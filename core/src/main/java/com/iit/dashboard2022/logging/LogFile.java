@@ -0,0 +1,312 @@
+package com.iit.dashboard2022.logging;
+
+import com.iit.dashboard2022.ecu.Metric;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.iit.dashboard2022.util.ByteFormat;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A representation of a logging session.
+ * <p>
+ * A session is a directory named after its creation time in epoch seconds, inside a logs directory
+ * given by the caller, holding the statistics file, its ID map and a text log.
+ *
+ * @author Noah Husby
+ */
+@Slf4j
+public class LogFile implements Closeable {
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm:ss a");
+    public static final String STATS_FILE_NAME = "log.stats";
+    public static final String STATS_MAP_FILE_NAME = "log.map.stats";
+    /**
+     * How often the summary of a recording session is stored, so a crash loses at most this much of it.
+     */
+    public static final long SUMMARY_INTERVAL_MS = 10000;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final ExecutorService SUMMARY_WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Summary-Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long date;
+    @Getter
+    private final File dir;
+    @Getter
+    private final File logFile;
+
+    private final File statsFile;
+    private final File statsMapFile;
+
+    private final StatisticsWriter statisticsWriter;
+    private final SessionSummary liveSummary;
+    private volatile SessionSummary storedSummary = null;
+    private boolean storedSummaryRead = false;
+    private volatile boolean recovered = false;
+    private long nextSummaryWrite = 0;
+
+    private FileOutputStream outputStream = null;
+
+    /**
+     * Creates a new session starting now.
+     *
+     * @param logsDir  Directory holding all sessions.
+     * @param statsMap Map of statistics names. Ex: {"1": "Steering"}
+     */
+    public LogFile(File logsDir, Map<String, String> statsMap) {
+        this(logsDir, System.currentTimeMillis() / 1000, statsMap);
+    }
+
+    /**
+     * Opens an existing session.
+     *
+     * @param logsDir Directory holding all sessions.
+     * @param date    Creation time of the session as epoch seconds.
+     */
+    public LogFile(File logsDir, long date) {
+        this(logsDir, date, null);
+    }
+
+    public LogFile(File logsDir, long date, Map<String, String> statsMap) {
+        this.date = date;
+        dir = new File(logsDir, String.valueOf(date));
+        dir.mkdirs();
+        statsFile = new File(dir, STATS_FILE_NAME);
+        statsMapFile = new File(dir, STATS_MAP_FILE_NAME);
+        logFile = new File(dir, "log.txt");
+        statisticsWriter = new StatisticsWriter(statsFile);
+        liveSummary = statsMap != null ? new SessionSummary(StatisticsMap.parse(statsMap)) : null;
+        if (statsMap != null) {
+            try {
+                FileWriter writer = new FileWriter(statsMapFile);
+                GSON.toJson(statsMap, writer);
+                writer.close();
+                statsFile.createNewFile();
+            } catch (IOException e) {
+                log.error("Failed to write statistics map file for: " + getFileSize(), e);
+            }
+        }
+        // Temp write to log, only for new sessions so appended diagnostics are kept
+        try {
+            if (!logFile.createNewFile()) {
+                return;
+            }
+            FileOutputStream outputStream = new FileOutputStream(logFile);
+            outputStream.write("Car is not logged through dashboard. Please check SD Card Logs.".getBytes(StandardCharsets.UTF_8));
+            outputStream.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+    }
+
+    /**
+     * Deletes all files associated with the session.
+     *
+     * @return True if all files are successfully deleted, false otherwise.
+     */
+    public boolean delete() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            Arrays.stream(files).forEach(File::delete);
+        }
+        return dir.delete();
+    }
+
+    /**
+     * Gets the date of creation of the session.
+     *
+     * @return Date of session creation formatted as a String.
+     */
+    public String getDate() {
+        LocalDateTime time = Instant.ofEpochSecond(date).atZone(ZoneId.systemDefault()).toLocalDateTime();
+        return time.format(DATE_FORMAT);
+    }
+
+    /**
+     * Gets the formatted name of the session.
+     *
+     * @return Formatted name of the log file in the format of "{Log Date} - {Size}", followed by
+     * " - {Duration}" once the summary of the session is known and " - Recovered" for sessions
+     * repaired after a crash.
+     */
+    public String getFormattedName() {
+        String name = getDate() + " - " + getFileSize();
+        SessionSummary summary = liveSummary != null ? liveSummary : storedSummary;
+        if (summary != null && summary.getSamples() > 0) {
+            long seconds = (summary.getLastTime() - summary.getFirstTime()) / 1000;
+            name = String.format(Locale.ENGLISH, "%s - %d:%02d", name, seconds / 60, seconds % 60);
+        }
+        return recovered ? name + " - Recovered" : name;
+    }
+
+    /**
+     * Gets the file size of the session.
+     *
+     * @return Size of the session formatted as a String.
+     */
+    public String getFileSize() {
+        long totalBytes = statsFile.length() + statsMapFile.length();
+        return ByteFormat.humanReadable(totalBytes);
+    }
+
+    /**
+     * Gets the creation time of the session as epoch.
+     *
+     * @return Creation time of the session as epoch seconds.
+     */
+    public long getEpochSeconds() {
+        return date;
+    }
+
+    /**
+     * Logs binary data to the statistics file.
+     * The writer is synchronized as both the ECU and derived metric threads log to the same session.
+     * The sample is added to the session summary under the same lock, so a stored summary always
+     * covers exactly the bytes written before it. Samples logged after the session is closed are dropped.
+     *
+     * @param metric Metric.
+     */
+    public void logBinaryStatistics(Metric metric) {
+        long time = System.currentTimeMillis();
+        int id = metric.getId();
+        int value = metric.getValue();
+        if (liveSummary == null) {
+            statisticsWriter.write(time, id, value);
+            return;
+        }
+        String snapshot = null;
+        synchronized (liveSummary) {
+            if (!statisticsWriter.write(time, id, value)) {
+                return;
+            }
+            liveSummary.record(time, id, value);
+            if (time >= nextSummaryWrite) {
+                nextSummaryWrite = time + SUMMARY_INTERVAL_MS;
+                snapshot = liveSummary.toJson(statisticsWriter.getBytesWritten());
+            }
+        }
+        if (snapshot != null) {
+            storeSummary(snapshot);
+        }
+    }
+
+    /**
+     * Gets the summary of the session. A recording session keeps its summary up to date with every
+     * sample. A stored session's summary is read from disk on the first call, which may block.
+     *
+     * @return {@link SessionSummary}, or null if a stored session has no up to date summary.
+     */
+    public SessionSummary getSummary() {
+        if (liveSummary != null) {
+            return liveSummary;
+        }
+        synchronized (this) {
+            if (!storedSummaryRead) {
+                reloadSummary();
+            }
+            return storedSummary;
+        }
+    }
+
+    /**
+     * Reads a stored session's summary and recovery state again, such as after {@link SessionRecovery} repaired it.
+     */
+    public synchronized void reloadSummary() {
+        if (liveSummary != null) {
+            return;
+        }
+        storedSummary = SessionSummary.read(dir);
+        recovered = SessionRecovery.isRecovered(dir);
+        storedSummaryRead = true;
+    }
+
+    /**
+     * Gets whether the session was repaired after the app died while recording it.
+     * Known once the summary has been read, see {@link #getSummary()}.
+     *
+     * @return True if recovered.
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Stores a serialized summary on the summary writer thread, in the order snapshots were taken.
+     */
+    private void storeSummary(String json) {
+        SUMMARY_WRITER.execute(() -> SessionSummary.store(dir, json));
+    }
+
+    /**
+     * Appends text to the session's text log.
+     *
+     * @param text Text to append.
+     */
+    public synchronized void appendLog(String text) {
+        try {
+            if (outputStream == null) {
+                outputStream = new FileOutputStream(logFile, true);
+            }
+            outputStream.write(text.getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+        } catch (IOException e) {
+            log.error("Failed to write to log file", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (outputStream != null) {
+            try {
+                outputStream.close();
+            } catch (IOException e) {
+                log.error("Failed to close log file output stream", e);
+            }
+        }
+        statisticsWriter.close();
+        if (liveSummary != null) {
+            String snapshot;
+            synchronized (liveSummary) {
+                snapshot = liveSummary.toJson(statisticsWriter.getBytesWritten());
+            }
+            storeSummary(snapshot);
+        }
+    }
+
+    /**
+     * Gets the statistics file of the session.
+     *
+     * @return Statistics log file.
+     */
+    public File getStatsFile() {
+        return statsFile;
+    }
+
+    /**
+     * Gets the statistics map of the session.
+     *
+     * @return Statistics mapping file.
+     */
+    public File getStatsMapFile() {
+        return statsMapFile;
+    }
+}
\ No newline at end of file
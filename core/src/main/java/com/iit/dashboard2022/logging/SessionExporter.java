@@ -0,0 +1,196 @@
+package com.iit.dashboard2022.logging;
+
+import com.iit.dashboard2022.ecu.Metric;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pivots a session's interleaved "time id value" samples into wide rows, one column per metric,
+ * resampled to a fixed rate.
+ * <p>
+ * Each row holds the latest value of every metric at the row's time, so sparse metrics are
+ * forward-filled. Samples are streamed from the statistics file and rows are handed to a
+ * {@link RowWriter} as soon as they are complete, so memory use does not depend on session length.
+ */
+public class SessionExporter {
+    private final File dir;
+    private double rate = 10;
+
+    /**
+     * @param dir Session directory.
+     */
+    public SessionExporter(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Sets the rate of the exported rows.
+     *
+     * @param rate Rows per second of recorded time.
+     * @return This exporter.
+     */
+    public SessionExporter rate(double rate) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    /**
+     * Exports the session.
+     *
+     * @param writer Receiver of the rows. Closed once the export completes or fails.
+     * @return Number of rows exported.
+     * @throws IOException If the session cannot be read or the rows cannot be written.
+     */
+    public long export(RowWriter writer) throws IOException {
+        try (RowWriter out = writer) {
+            Map<Integer, String> names = StatisticsMap.read(new File(dir, LogFile.STATS_MAP_FILE_NAME));
+            TreeMap<Integer, String> columns = columns(names);
+            int maxId = columns.isEmpty() ? 0 : columns.lastKey();
+            int[] columnOf = new int[maxId + 1];
+            Arrays.fill(columnOf, -1);
+            int index = 0;
+            for (Integer id : columns.keySet()) {
+                columnOf[id] = index++;
+            }
+            Resampler resampler = new Resampler(out, new ArrayList<>(columns.values()), columnOf, 1000 / rate);
+            StatisticsScanner.scan(new File(dir, LogFile.STATS_FILE_NAME), resampler);
+            resampler.finish();
+            return resampler.rows;
+        } catch (ExportException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Picks the columns: the metrics the summary saw if it is up to date, otherwise every metric in the map.
+     *
+     * @return Column name by recorded ID, in ID order.
+     */
+    private TreeMap<Integer, String> columns(Map<Integer, String> names) {
+        TreeMap<Integer, String> columns = new TreeMap<>();
+        if (names.isEmpty()) {
+            for (Metric metric : Metric.values()) {
+                names.put(metric.getId(), metric.name());
+            }
+        }
+        SessionSummary summary = SessionSummary.read(dir);
+        for (Map.Entry<Integer, String> entry : names.entrySet()) {
+            if (summary == null || summary.getMetric(entry.getValue()) != null) {
+                columns.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Receives exported rows in time order.
+     */
+    public interface RowWriter extends Closeable {
+        /**
+         * Called once before the first row.
+         *
+         * @param startTime    Epoch millis of the first row.
+         * @param periodMillis Time between rows.
+         * @param columns      Column names, in the order of the values of each row.
+         */
+        void begin(long startTime, double periodMillis, List<String> columns) throws IOException;
+
+        /**
+         * Called for each row. The arrays are reused between rows.
+         *
+         * @param time    Epoch millis of the row.
+         * @param values  Latest value of each column.
+         * @param present Whether each column has had a value yet. Once true it stays true.
+         */
+        void row(long time, int[] values, boolean[] present) throws IOException;
+    }
+
+    /**
+     * Forward-fills the latest value of each column and emits a row every period.
+     * A row at time T holds every sample recorded at or before T.
+     */
+    private static class Resampler implements StatisticsScanner.SampleHandler {
+        private final RowWriter writer;
+        private final List<String> columns;
+        private final int[] columnOf;
+        private final double period;
+        private final int[] values;
+        private final boolean[] present;
+        private long start = 0;
+        private long lastTime = Long.MIN_VALUE;
+        private long rows = 0;
+        private boolean begun = false;
+
+        private Resampler(RowWriter writer, List<String> columns, int[] columnOf, double period) {
+            this.writer = writer;
+            this.columns = columns;
+            this.columnOf = columnOf;
+            this.period = period;
+            this.values = new int[columns.size()];
+            this.present = new boolean[columns.size()];
+        }
+
+        @Override
+        public void onSample(long time, int id, int value) {
+            try {
+                if (!begun) {
+                    begun = true;
+                    start = time;
+                    writer.begin(start, period, columns);
+                }
+                emitBefore(time);
+                lastTime = Math.max(lastTime, time);
+                int column = id >= 0 && id < columnOf.length ? columnOf[id] : -1;
+                if (column >= 0) {
+                    values[column] = value;
+                    present[column] = true;
+                }
+            } catch (IOException e) {
+                throw new ExportException(e);
+            }
+        }
+
+        private void finish() throws IOException {
+            if (!begun) {
+                writer.begin(0, period, columns);
+                return;
+            }
+            // Include the rows at or before the last sample
+            emitBefore(lastTime + 1);
+        }
+
+        private void emitBefore(long time) throws IOException {
+            double rowTime;
+            while ((rowTime = start + rows * period) < time) {
+                writer.row(Math.round(rowTime), values, present);
+                rows++;
+            }
+        }
+    }
+
+    /**
+     * Carries a write failure out of the sample handler.
+     */
+    private static class ExportException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private ExportException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
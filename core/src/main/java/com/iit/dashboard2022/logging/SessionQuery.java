@@ -0,0 +1,329 @@
+package com.iit.dashboard2022.logging;
+
+import com.iit.dashboard2022.ecu.Metric;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Finds the samples of a metric within a value range across every session in a logs directory.
+ * <p>
+ * Sessions are searched in parallel with fork-join. Each session's {@link SessionSummary} is used
+ * first: sessions whose metric range cannot match are skipped, and sessions that match entirely are
+ * answered from the summary alone. Only the remaining sessions are scanned, and sessions without an
+ * up to date summary get one stored while they are scanned, so later queries are fast. Matches are
+ * passed to the caller as each session completes.
+ * <p>
+ * Queries run on their own pool, as scanning blocks on file reads. A session still being recorded
+ * should be left out with {@link #excluding(long)}, as its summary is owned by its {@link LogFile}.
+ * <p>
+ * Ex: every session where FAULT is above 0, or the max of STACK_HIGH_TEMP with {@link #all()}.
+ */
+@Slf4j
+public class SessionQuery {
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Session-Query-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
+
+    private final File logsDir;
+    private final Metric metric;
+    private int min = Integer.MIN_VALUE;
+    private int max = Integer.MAX_VALUE;
+    private long fromEpochSeconds = Long.MIN_VALUE;
+    private long toEpochSeconds = Long.MAX_VALUE;
+    private long excludedEpochSeconds = Long.MIN_VALUE;
+
+    /**
+     * @param logsDir Directory holding all sessions.
+     * @param metric  Metric to query.
+     */
+    public SessionQuery(File logsDir, Metric metric) {
+        this.logsDir = logsDir;
+        this.metric = metric;
+    }
+
+    /**
+     * Matches every sample of the metric.
+     */
+    public SessionQuery all() {
+        return between(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Matches samples greater than a value.
+     */
+    public SessionQuery above(int value) {
+        return value == Integer.MAX_VALUE ? between(1, 0) : between(value + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Matches samples less than a value.
+     */
+    public SessionQuery below(int value) {
+        return value == Integer.MIN_VALUE ? between(1, 0) : between(Integer.MIN_VALUE, value - 1);
+    }
+
+    /**
+     * Matches samples within a range.
+     *
+     * @param min Smallest matching value.
+     * @param max Largest matching value.
+     */
+    public SessionQuery between(int min, int max) {
+        this.min = min;
+        this.max = max;
+        return this;
+    }
+
+    /**
+     * Limits the query to sessions created within a time range.
+     *
+     * @param fromEpochSeconds Earliest session, inclusive.
+     * @param toEpochSeconds   Latest session, inclusive.
+     */
+    public SessionQuery sessionsBetween(long fromEpochSeconds, long toEpochSeconds) {
+        this.fromEpochSeconds = fromEpochSeconds;
+        this.toEpochSeconds = toEpochSeconds;
+        return this;
+    }
+
+    /**
+     * Leaves out one session, such as the one being recorded.
+     *
+     * @param epochSeconds Creation time of the session.
+     */
+    public SessionQuery excluding(long epochSeconds) {
+        this.excludedEpochSeconds = epochSeconds;
+        return this;
+    }
+
+    /**
+     * Runs the query and waits for it to complete.
+     *
+     * @param consumer Receives each matching session as soon as it is found. Called from
+     *                 fork-join worker threads, one call at a time.
+     * @return Totals of the query.
+     */
+    public Result run(Consumer<Match> consumer) {
+        return submit(consumer).join();
+    }
+
+    /**
+     * Runs the query in the background on the query pool.
+     *
+     * @param consumer Receives each matching session as soon as it is found. Called from
+     *                 fork-join worker threads, one call at a time.
+     * @return Task completing with the totals of the query. Cancelling it skips sessions not started yet.
+     */
+    public ForkJoinTask<Result> submit(Consumer<Match> consumer) {
+        List<File> sessions = new ArrayList<>();
+        File[] dirs = logsDir.listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                try {
+                    long epochSeconds = Long.parseLong(dir.getName());
+                    if (epochSeconds >= fromEpochSeconds && epochSeconds <= toEpochSeconds && epochSeconds != excludedEpochSeconds) {
+                        sessions.add(dir);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Not a session
+                }
+            }
+        }
+        Object lock = new Object();
+        Consumer<Match> serialized = match -> {
+            synchronized (lock) {
+                consumer.accept(match);
+            }
+        };
+        return POOL.submit(new SessionTask(sessions, 0, sessions.size(), serialized, null));
+    }
+
+    private Result query(File dir, Consumer<Match> consumer) {
+        Result result = new Result();
+        result.sessions = 1;
+        try {
+            SessionSummary summary = SessionSummary.read(dir);
+            if (summary != null) {
+                SessionSummary.MetricSummary recorded = summary.getMetric(metric.name());
+                if (recorded == null || recorded.getMax() < min || recorded.getMin() > max) {
+                    result.skipped = 1;
+                    return result;
+                }
+                if (recorded.getMin() >= min && recorded.getMax() <= max) {
+                    result.fromSummary = 1;
+                    Match match = new Match(dir, recorded.getCount(), recorded.getMin(), recorded.getMax(), recorded.getFirstTime(), recorded.getLastTime(), true);
+                    return result.add(match, consumer);
+                }
+            }
+            result.scanned = 1;
+            Matcher matcher = new Matcher(StatisticsMap.idOf(StatisticsMap.read(new File(dir, LogFile.STATS_MAP_FILE_NAME)), metric.name(), metric.getId()));
+            if (summary != null) {
+                File statsFile = new File(dir, LogFile.STATS_FILE_NAME);
+                StatisticsScanner.scan(statsFile, 0, summary.getStatsBytes(), matcher);
+            } else {
+                summary = SessionSummary.build(dir, matcher);
+                summary.write(dir, summary.getStatsBytes());
+            }
+            if (matcher.count > 0) {
+                return result.add(new Match(dir, matcher.count, matcher.min, matcher.max, matcher.firstTime, matcher.lastTime, false), consumer);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to query session " + dir, e);
+            result.failed = 1;
+        }
+        return result;
+    }
+
+    /**
+     * Searches a slice of the sessions, splitting it until each task holds one session.
+     */
+    private class SessionTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<File> sessions;
+        private final int from;
+        private final int to;
+        private final Consumer<Match> consumer;
+        private final SessionTask root;
+
+        private SessionTask(List<File> sessions, int from, int to, Consumer<Match> consumer, SessionTask root) {
+            this.sessions = sessions;
+            this.from = from;
+            this.to = to;
+            this.consumer = consumer;
+            this.root = root == null ? this : root;
+        }
+
+        @Override
+        protected Result compute() {
+            if (root.isCancelled()) {
+                return new Result();
+            }
+            if (to - from == 0) {
+                return new Result();
+            }
+            if (to - from == 1) {
+                return query(sessions.get(from), consumer);
+            }
+            int middle = (from + to) >>> 1;
+            SessionTask left = new SessionTask(sessions, from, middle, consumer, root);
+            left.fork();
+            Result right = new SessionTask(sessions, middle, to, consumer, root).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Collects the matching samples of one session.
+     */
+    private class Matcher implements StatisticsScanner.SampleHandler {
+        private final int id;
+        private long count = 0;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+        private long firstTime = 0;
+        private long lastTime = 0;
+
+        private Matcher(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void onSample(long time, int id, int value) {
+            if (id != this.id || value < SessionQuery.this.min || value > SessionQuery.this.max) {
+                return;
+            }
+            if (count++ == 0) {
+                firstTime = time;
+            }
+            lastTime = Math.max(lastTime, time);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+    }
+
+    /**
+     * The matching samples of one session.
+     */
+    @Getter
+    public static class Match {
+        private final File dir;
+        private final long epochSeconds;
+        private final long count;
+        private final int min;
+        private final int max;
+        private final long firstTime;
+        private final long lastTime;
+        /**
+         * Whether the match was answered from the session summary without reading samples.
+         */
+        private final boolean fromSummary;
+
+        private Match(File dir, long count, int min, int max, long firstTime, long lastTime, boolean fromSummary) {
+            this.dir = dir;
+            this.epochSeconds = Long.parseLong(dir.getName());
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.firstTime = firstTime;
+            this.lastTime = lastTime;
+            this.fromSummary = fromSummary;
+        }
+    }
+
+    /**
+     * Totals of a query.
+     */
+    @Getter
+    public static class Result {
+        private int sessions = 0;
+        private int matched = 0;
+        /**
+         * Sessions ruled out by their summary.
+         */
+        private int skipped = 0;
+        /**
+         * Sessions answered from their summary.
+         */
+        private int fromSummary = 0;
+        private int scanned = 0;
+        private int failed = 0;
+        private long count = 0;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        private Result add(Match match, Consumer<Match> consumer) {
+            matched++;
+            count += match.count;
+            min = Math.min(min, match.min);
+            max = Math.max(max, match.max);
+            consumer.accept(match);
+            return this;
+        }
+
+        private Result merge(Result other) {
+            sessions += other.sessions;
+            matched += other.matched;
+            skipped += other.skipped;
+            fromSummary += other.fromSummary;
+            scanned += other.scanned;
+            failed += other.failed;
+            count += other.count;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.iit.dashboard2022.logging;
+
+import com.google.gson.Gson;
+import com.iit.dashboard2022.ecu.Metric;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repairs a session left behind when the app died before {@link LogFile#close()}.
+ * <p>
+ * A torn last line of the statistics file is cut off, leftover temporary files are removed, a
+ * missing or unreadable statistics map, the index of metric names by ID, is rebuilt from the
+ * current metrics and a missing or out of date summary is rebuilt. When the last periodic summary snapshot is
+ * still valid, only the samples written after it are scanned. Sessions that show signs of a crash
+ * get a marker file listing what was repaired.
+ */
+@Slf4j
+public final class SessionRecovery {
+    public static final String MARKER_FILE_NAME = "log.recovered";
+    private static final int TAIL_BYTES = 4096;
+    private static final Gson GSON = new Gson();
+
+    private SessionRecovery() {
+    }
+
+    /**
+     * Checks and repairs a session. Must not be called on a session that is still recording.
+     *
+     * @param dir Session directory.
+     * @return What was repaired.
+     */
+    public static Report recover(File dir) {
+        Report report = new Report(dir);
+        File statsFile = new File(dir, LogFile.STATS_FILE_NAME);
+        try {
+            removeTemporaryFiles(dir, report);
+            if (statsFile.isFile()) {
+                truncateTornTail(statsFile, report);
+                rebuildStatisticsMap(dir, report);
+            }
+            if (SessionSummary.read(dir) == null && statsFile.isFile()) {
+                rebuildSummary(dir, statsFile, report);
+            }
+        } catch (IOException e) {
+            log.error("Failed to recover session " + dir, e);
+            report.crashed("Recovery failed: " + e);
+        }
+        if (report.isCrashed()) {
+            writeMarker(dir, report);
+        }
+        return report;
+    }
+
+    /**
+     * Checks whether a session has been repaired after a crash.
+     *
+     * @param dir Session directory.
+     * @return True if a recovery marker exists.
+     */
+    public static boolean isRecovered(File dir) {
+        return new File(dir, MARKER_FILE_NAME).isFile();
+    }
+
+    private static void removeTemporaryFiles(File dir, Report report) {
+        File[] temps = dir.listFiles((parent, name) -> (name.startsWith(SessionSummary.FILE_NAME) || name.startsWith(LogFile.STATS_MAP_FILE_NAME)) && name.endsWith(".tmp"));
+        if (temps == null) {
+            return;
+        }
+        for (File temp : temps) {
+            if (temp.delete()) {
+                report.crashed("Removed unfinished file " + temp.getName());
+            }
+        }
+    }
+
+    /**
+     * Cuts the statistics file after its last complete line.
+     */
+    private static void truncateTornTail(File statsFile, Report report) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(statsFile, "rw")) {
+            long length = raf.length();
+            if (length == 0) {
+                return;
+            }
+            byte[] tail = new byte[TAIL_BYTES];
+            long end = length;
+            while (end > 0) {
+                int read = (int) Math.min(TAIL_BYTES, end);
+                long start = end - read;
+                raf.seek(start);
+                raf.readFully(tail, 0, read);
+                for (int i = read - 1; i >= 0; i--) {
+                    if (tail[i] == '\n') {
+                        cut(raf, start + i + 1, length, report);
+                        return;
+                    }
+                }
+                end = start;
+            }
+            cut(raf, 0, length, report);
+        }
+    }
+
+    private static void cut(RandomAccessFile raf, long newLength, long length, Report report) throws IOException {
+        if (newLength == length) {
+            return;
+        }
+        raf.setLength(newLength);
+        report.truncatedBytes = length - newLength;
+        report.crashed("Truncated " + report.truncatedBytes + " bytes of a torn last line");
+    }
+
+    /**
+     * Writes the statistics map again if it is missing or unreadable, such as when the app died while
+     * creating the session. Metric IDs are taken from the current build, which recorded the session
+     * unless the app was updated since.
+     */
+    private static void rebuildStatisticsMap(File dir, Report report) throws IOException {
+        File mapFile = new File(dir, LogFile.STATS_MAP_FILE_NAME);
+        if (mapFile.isFile() && !StatisticsMap.read(mapFile).isEmpty()) {
+            return;
+        }
+        File temp = File.createTempFile(LogFile.STATS_MAP_FILE_NAME, ".tmp", dir);
+        try (Writer writer = new FileWriter(temp)) {
+            GSON.toJson(Metric.getMetricsAsMap(), writer);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (mapFile.isFile()) {
+            mapFile.delete();
+        }
+        if (!temp.renameTo(mapFile)) {
+            temp.delete();
+            throw new IOException("Failed to replace statistics map " + mapFile);
+        }
+        report.crashed("Rebuilt statistics map from the current metrics");
+    }
+
+    /**
+     * Resumes the last summary snapshot if it still fits the statistics file, otherwise builds the summary from scratch.
+     */
+    private static void rebuildSummary(File dir, File statsFile, Report report) throws IOException {
+        long length = statsFile.length();
+        SessionSummary snapshot = SessionSummary.readSnapshot(dir);
+        if (snapshot != null && snapshot.getStatsBytes() <= length) {
+            StatisticsScanner.scan(statsFile, snapshot.getStatsBytes(), length, snapshot::record);
+            report.scannedBytes = length - snapshot.getStatsBytes();
+            snapshot.write(dir, length);
+            report.crashed("Resumed summary snapshot, scanned the last " + report.scannedBytes + " bytes");
+            return;
+        }
+        SessionSummary summary = SessionSummary.build(dir, null);
+        summary.write(dir, summary.getStatsBytes());
+        report.scannedBytes = summary.getStatsBytes();
+        if (snapshot != null) {
+            report.crashed("Rebuilt summary, the snapshot did not match the statistics file");
+        } else {
+            report.repaired("Built missing summary");
+        }
+    }
+
+    private static void writeMarker(File dir, Report report) {
+        try (Writer writer = new FileWriter(new File(dir, MARKER_FILE_NAME), true)) {
+            writer.write("Recovered " + Instant.now() + "\n");
+            for (String action : report.actions) {
+                writer.write("  " + action + "\n");
+            }
+        } catch (IOException e) {
+            log.error("Failed to write recovery marker for " + dir, e);
+        }
+    }
+
+    /**
+     * What was repaired in a session.
+     */
+    @Getter
+    public static class Report {
+        private final File dir;
+        private final List<String> actions = new ArrayList<>();
+        /**
+         * Whether the session showed signs of a crash, as opposed to only lacking a summary.
+         */
+        private boolean crashed = false;
+        private long truncatedBytes = 0;
+        private long scannedBytes = 0;
+
+        private Report(File dir) {
+            this.dir = dir;
+        }
+
+        /**
+         * Whether anything was repaired.
+         */
+        public boolean isRepaired() {
+            return !actions.isEmpty();
+        }
+
+        private void crashed(String action) {
+            crashed = true;
+            actions.add(action);
+        }
+
+        private void repaired(String action) {
+            actions.add(action);
+        }
+    }
+}
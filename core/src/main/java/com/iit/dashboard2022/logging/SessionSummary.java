@@ -0,0 +1,284 @@
+package com.iit.dashboard2022.logging;
+
+import com.google.gson.Gson;
+import com.iit.dashboard2022.ecu.Metric;
+import com.iit.dashboard2022.ecu.State;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summary of a session's statistics: per-metric count, min, max, sum and first / last sample time,
+ * plus the time spent in each vehicle state.
+ * <p>
+ * Summaries are kept next to the statistics file, so questions about a session can be answered,
+ * or a session ruled out, without reading its samples. A stored summary records how many bytes
+ * of the statistics file it covers and is only used while that still matches the file.
+ */
+@Slf4j
+public class SessionSummary {
+    public static final String FILE_NAME = "log.summary";
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Length of the statistics file covered by the summary.
+     */
+    @Getter
+    private long statsBytes = 0;
+    @Getter
+    private long samples = 0;
+    @Getter
+    private long firstTime = 0;
+    @Getter
+    private long lastTime = 0;
+    private final Map<String, MetricSummary> metrics = new TreeMap<>();
+    private final Map<String, Long> stateDwell = new TreeMap<>();
+    private int state = -1;
+    private long stateSince = 0;
+
+    private transient Map<Integer, String> names;
+    private transient int stateId;
+    private transient MetricSummary[] byId = new MetricSummary[0];
+
+    private SessionSummary() {
+        // Used when reading a stored summary
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * Creates an empty summary for samples recorded with the given statistics map.
+     *
+     * @param names Metric name by recorded ID, or an empty map to use current IDs.
+     */
+    public SessionSummary(Map<Integer, String> names) {
+        this.names = names;
+        this.stateId = StatisticsMap.idOf(names, Metric.STATE.name(), Metric.STATE.getId());
+    }
+
+    /**
+     * Adds a sample.
+     *
+     * @param time  Epoch millis of the sample.
+     * @param id    Recorded ID of the metric.
+     * @param value Value of the metric.
+     */
+    public synchronized void record(long time, int id, int value) {
+        if (id < 0) {
+            return;
+        }
+        if (id >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(id + 1, 32));
+        }
+        MetricSummary metric = byId[id];
+        if (metric == null) {
+            metric = byId[id] = metrics.computeIfAbsent(nameOf(id), name -> new MetricSummary());
+        }
+        metric.record(time, value);
+        if (samples++ == 0) {
+            firstTime = time;
+        }
+        lastTime = Math.max(lastTime, time);
+        if (id == stateId && value != state) {
+            if (state >= 0) {
+                stateDwell.merge(stateName(state), Math.max(0, time - stateSince), Long::sum);
+            }
+            state = value;
+            stateSince = time;
+        }
+    }
+
+    /**
+     * Gets the summary of a metric.
+     *
+     * @param name Name of the metric, as in the session's statistics map.
+     * @return {@link MetricSummary}, or null if the metric was never recorded.
+     */
+    public synchronized MetricSummary getMetric(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * Gets the summaries of all recorded metrics.
+     *
+     * @return Metric summaries by name.
+     */
+    public synchronized Map<String, MetricSummary> getMetrics() {
+        return Collections.unmodifiableMap(new TreeMap<>(metrics));
+    }
+
+    /**
+     * Gets the time spent in each state. The current state lasts until the last sample.
+     *
+     * @return Milliseconds spent by {@link State} name.
+     */
+    public synchronized Map<String, Long> getStateDwell() {
+        Map<String, Long> dwell = new TreeMap<>(stateDwell);
+        if (state >= 0) {
+            dwell.merge(stateName(state), Math.max(0, lastTime - stateSince), Long::sum);
+        }
+        return dwell;
+    }
+
+    /**
+     * Reads the stored summary of a session if it still covers the whole statistics file.
+     *
+     * @param dir Session directory.
+     * @return {@link SessionSummary}, or null if missing, unreadable or out of date.
+     */
+    public static SessionSummary read(File dir) {
+        SessionSummary summary = readSnapshot(dir);
+        if (summary == null || summary.statsBytes != new File(dir, LogFile.STATS_FILE_NAME).length()) {
+            return null;
+        }
+        return summary;
+    }
+
+    /**
+     * Reads the stored summary of a session even if it is out of date, such as the last periodic
+     * snapshot of a session that never closed. It covers the first {@link #getStatsBytes()} bytes
+     * of the statistics file, and further samples can be recorded into it.
+     *
+     * @param dir Session directory.
+     * @return {@link SessionSummary}, or null if missing or unreadable.
+     */
+    public static SessionSummary readSnapshot(File dir) {
+        File file = new File(dir, FILE_NAME);
+        if (!file.isFile()) {
+            return null;
+        }
+        SessionSummary summary;
+        try (Reader reader = new FileReader(file)) {
+            summary = GSON.fromJson(reader, SessionSummary.class);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read session summary " + file, e);
+            return null;
+        }
+        if (summary == null) {
+            return null;
+        }
+        summary.names = StatisticsMap.read(new File(dir, LogFile.STATS_MAP_FILE_NAME));
+        summary.stateId = StatisticsMap.idOf(summary.names, Metric.STATE.name(), Metric.STATE.getId());
+        return summary;
+    }
+
+    /**
+     * Builds the summary of a session by scanning its statistics file.
+     *
+     * @param dir     Session directory.
+     * @param handler Also receives every sample scanned, or null.
+     * @return {@link SessionSummary}
+     * @throws IOException If the statistics file cannot be read.
+     */
+    public static SessionSummary build(File dir, StatisticsScanner.SampleHandler handler) throws IOException {
+        File statsFile = new File(dir, LogFile.STATS_FILE_NAME);
+        SessionSummary summary = new SessionSummary(StatisticsMap.read(new File(dir, LogFile.STATS_MAP_FILE_NAME)));
+        long length = statsFile.length();
+        StatisticsScanner.scan(statsFile, 0, length, (time, id, value) -> {
+            summary.record(time, id, value);
+            if (handler != null) {
+                handler.onSample(time, id, value);
+            }
+        });
+        summary.statsBytes = length;
+        return summary;
+    }
+
+    /**
+     * Stores the summary in a session directory.
+     *
+     * @param dir        Session directory.
+     * @param statsBytes Length of the statistics file covered by the summary.
+     */
+    public void write(File dir, long statsBytes) {
+        store(dir, toJson(statsBytes));
+    }
+
+    /**
+     * Serializes the summary, for storing later without holding up whoever is recording samples.
+     *
+     * @param statsBytes Length of the statistics file covered by the summary.
+     * @return Summary as JSON.
+     */
+    public synchronized String toJson(long statsBytes) {
+        this.statsBytes = statsBytes;
+        return GSON.toJson(this);
+    }
+
+    /**
+     * Stores a serialized summary in a session directory, replacing the file atomically so a crash never leaves half a summary.
+     *
+     * @param dir  Session directory.
+     * @param json Summary from {@link #toJson(long)}.
+     */
+    public static void store(File dir, String json) {
+        File temp;
+        try {
+            temp = File.createTempFile(FILE_NAME, ".tmp", dir);
+        } catch (IOException e) {
+            log.error("Failed to write session summary for " + dir, e);
+            return;
+        }
+        try (Writer writer = new FileWriter(temp)) {
+            writer.write(json);
+        } catch (IOException e) {
+            log.error("Failed to write session summary for " + dir, e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(new File(dir, FILE_NAME))) {
+            temp.delete();
+            log.error("Failed to replace session summary for " + dir);
+        }
+    }
+
+    private String nameOf(int id) {
+        String name = names.get(id);
+        if (name != null) {
+            return name;
+        }
+        Metric metric = names.isEmpty() ? Metric.getMetricById(id) : null;
+        return metric != null ? metric.name() : String.valueOf(id);
+    }
+
+    private static String stateName(int id) {
+        State state = State.getStateById(id);
+        return state != null ? state.name() : String.valueOf(id);
+    }
+
+    /**
+     * Summary of one metric.
+     */
+    @Getter
+    public static class MetricSummary {
+        private long count = 0;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+        private long sum = 0;
+        private long firstTime = 0;
+        private long lastTime = 0;
+
+        private void record(long time, int value) {
+            if (count++ == 0) {
+                firstTime = time;
+            }
+            lastTime = Math.max(lastTime, time);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
+}
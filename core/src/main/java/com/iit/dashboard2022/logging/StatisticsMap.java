@@ -0,0 +1,83 @@
+package com.iit.dashboard2022.logging;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads a session's statistics map, the metric names recorded for each ID when the session was created.
+ */
+@Slf4j
+public final class StatisticsMap {
+    private static final Gson GSON = new Gson();
+
+    private StatisticsMap() {
+    }
+
+    /**
+     * Reads a statistics map file.
+     *
+     * @param file Statistics map file.
+     * @return Metric name by recorded ID, empty if the file is missing or unreadable.
+     */
+    public static Map<Integer, String> read(File file) {
+        if (file == null || !file.isFile()) {
+            return new TreeMap<>();
+        }
+        Map<String, String> raw;
+        try (Reader reader = new FileReader(file)) {
+            raw = GSON.fromJson(reader, new TypeToken<HashMap<String, String>>() {
+            }.getType());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read statistics map " + file, e);
+            return new TreeMap<>();
+        }
+        return parse(raw);
+    }
+
+    /**
+     * Parses a statistics map as written to the map file.
+     *
+     * @param raw Metric name by ID string. Ex: {"1": "Steering"}
+     * @return Metric name by recorded ID. Entries that are not IDs are left out.
+     */
+    public static Map<Integer, String> parse(Map<String, String> raw) {
+        Map<Integer, String> names = new TreeMap<>();
+        if (raw == null) {
+            return names;
+        }
+        for (Map.Entry<String, String> entry : raw.entrySet()) {
+            try {
+                names.put(Integer.parseInt(entry.getKey()), entry.getValue());
+            } catch (NumberFormatException ignored) {
+                // Not an ID
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Finds the recorded ID of a metric by name.
+     *
+     * @param names      Metric name by recorded ID.
+     * @param name       Name of the metric.
+     * @param fallbackId ID to use when the map does not name the metric, such as for sessions without a map.
+     * @return Recorded ID of the metric.
+     */
+    public static int idOf(Map<Integer, String> names, String name, int fallbackId) {
+        for (Map.Entry<Integer, String> entry : names.entrySet()) {
+            if (name.equals(entry.getValue())) {
+                return entry.getKey();
+            }
+        }
+        return fallbackId;
+    }
+}
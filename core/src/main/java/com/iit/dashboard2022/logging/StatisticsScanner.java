@@ -0,0 +1,150 @@
+package com.iit.dashboard2022.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the "time id value" lines of a statistics file without allocating per sample.
+ * <p>
+ * A file can be scanned in byte ranges, each from its own thread. A line belongs to the range
+ * its first byte falls in, so scanning every range of {@link #split(File, long)} visits each line
+ * exactly once, in file order within a range.
+ */
+public final class StatisticsScanner {
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private StatisticsScanner() {
+    }
+
+    /**
+     * Receives samples from a scan.
+     */
+    @FunctionalInterface
+    public interface SampleHandler {
+        void onSample(long time, int id, int value);
+    }
+
+    /**
+     * Splits a file into ranges of about the given size.
+     *
+     * @param file       Statistics file.
+     * @param rangeBytes Target size of each range.
+     * @return Range boundaries, from 0 to the file length. Range i is [bounds[i], bounds[i + 1]).
+     */
+    public static long[] split(File file, long rangeBytes) {
+        long length = file.length();
+        int ranges = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 1, (length + rangeBytes - 1) / rangeBytes));
+        long[] bounds = new long[ranges + 1];
+        for (int i = 0; i <= ranges; i++) {
+            bounds[i] = length * i / ranges;
+        }
+        return bounds;
+    }
+
+    /**
+     * Scans a whole file.
+     *
+     * @param file    Statistics file.
+     * @param handler Receiver of samples.
+     * @return Number of malformed lines skipped, such as a torn last line.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long scan(File file, SampleHandler handler) throws IOException {
+        return scan(file, 0, Long.MAX_VALUE, handler);
+    }
+
+    /**
+     * Scans the lines starting in a byte range of a file.
+     *
+     * @param file    Statistics file.
+     * @param start   First byte of the range.
+     * @param end     Byte after the range.
+     * @param handler Receiver of samples.
+     * @return Number of malformed lines skipped.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long scan(File file, long start, long end, SampleHandler handler) throws IOException {
+        if (start >= end) {
+            return 0;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            byte[] bytes = buffer.array();
+            long position = start;
+            // A range not at the start of a line begins after the line in progress
+            boolean skipping = false;
+            if (start > 0) {
+                ByteBuffer previous = ByteBuffer.allocate(1);
+                channel.read(previous, start - 1);
+                skipping = previous.get(0) != '\n';
+            }
+
+            long malformed = 0;
+            long lineStart = position;
+            int field = 0;
+            long number = 0, time = 0, id = 0;
+            boolean digits = false, negative = false, valid = true;
+            while (true) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    byte c = bytes[i];
+                    if (skipping) {
+                        if (c == '\n') {
+                            skipping = false;
+                            lineStart = position + i + 1;
+                            if (lineStart >= end) {
+                                return 0;
+                            }
+                        }
+                        continue;
+                    }
+                    if (c == '\n') {
+                        if (valid && digits && field == 2) {
+                            handler.onSample(time, (int) id, (int) (negative ? -number : number));
+                        } else {
+                            malformed++;
+                        }
+                        field = 0;
+                        number = 0;
+                        digits = negative = false;
+                        valid = true;
+                        lineStart = position + i + 1;
+                        if (lineStart >= end) {
+                            return malformed;
+                        }
+                    } else if (c >= '0' && c <= '9') {
+                        number = number * 10 + (c - '0');
+                        digits = true;
+                    } else if (c == '-' && !digits) {
+                        negative = true;
+                    } else if (c == ' ' && digits && field < 2) {
+                        if (field == 0) {
+                            time = negative ? -number : number;
+                        } else {
+                            id = negative ? -number : number;
+                        }
+                        field++;
+                        number = 0;
+                        digits = negative = false;
+                    } else if (c != '\r') {
+                        valid = false;
+                    }
+                }
+                position += read;
+            }
+            // A last line without a newline is only counted if it started in this range
+            if (!skipping && position > lineStart && lineStart < end) {
+                malformed++;
+            }
+            return malformed;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.iit.dashboard2022.logging;
+
+import com.iit.dashboard2022.diagnostics.Counter;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes samples to a session's statistics file, one "time id value" line per sample.
+ * The file is created and opened for appending on the first write. Writes after {@link #close()} are
+ * dropped, as threads still holding a finished session may log to it after the next one started.
+ */
+@Slf4j
+public class StatisticsWriter implements Closeable {
+    @Getter
+    private final File file;
+    private FileOutputStream stream = null;
+    private long bytesWritten = 0;
+    private boolean closed = false;
+
+    public StatisticsWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Appends a sample.
+     *
+     * @param time  Epoch millis of the sample.
+     * @param id    ID of the metric.
+     * @param value Value of the metric.
+     * @return True if the sample was written, false if the writer is closed or the file could not be opened.
+     */
+    public synchronized boolean write(long time, int id, int value) {
+        if (closed) {
+            return false;
+        }
+        String out = String.format(Locale.ENGLISH, "%d %d %d\n", time, id, value);
+        if (stream == null) {
+            try {
+                if (!file.exists()) {
+                    file.createNewFile();
+                }
+                bytesWritten = file.length();
+                stream = new FileOutputStream(file, true);
+            } catch (IOException e) {
+                Counter.LOG_ERRORS.increment();
+                log.error("Failed to create statistics file or open output stream", e);
+                return false;
+            }
+        }
+        try {
+            byte[] bytes = out.getBytes(StandardCharsets.UTF_8);
+            stream.write(bytes);
+            bytesWritten += bytes.length;
+            Counter.LOG_LINES.increment();
+            Counter.LOG_BYTES.add(bytes.length);
+            return true;
+        } catch (IOException e) {
+            Counter.LOG_ERRORS.increment();
+            log.error("Failed to write data to statistics file", e);
+            return false;
+        }
+    }
+
+    /**
+     * Gets the length of the file as written, counting what it held when it was opened.
+     *
+     * @return Bytes written.
+     */
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                log.error("Failed to close statistics file output stream", e);
+            }
+            stream = null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.iit.dashboard2022.telemetry;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Wire format shared by the dashboard uplink and the pit receiver.
+ * <p>
+ * A data frame is a 24 byte header followed by up to {@link #MAX_SAMPLES} 8 byte samples.
+ * The header carries a session ID chosen by the uplink each time it starts, as sequence numbers
+ * restart from zero with every session.
+ * Sample timestamps are stored as unsigned millisecond offsets from the frame's base time.
+ * An acknowledgement is sent back by the receiver so the uplink can estimate link quality.
+ * All values are little endian to match the ECU's serial format.
+ */
+public final class TelemetryFrame {
+    public static final int DATA_MAGIC = 0x54544949; // "IITT"
+    public static final int ACK_MAGIC = 0x4B434149; // "IACK"
+    public static final byte VERSION = 2;
+
+    public static final int MAX_FRAME_BYTES = 1400;
+    public static final int HEADER_BYTES = 24;
+    public static final int SAMPLE_BYTES = 8;
+    public static final int ACK_BYTES = 12;
+    public static final int MAX_SAMPLES = (MAX_FRAME_BYTES - HEADER_BYTES) / SAMPLE_BYTES;
+    public static final int MAX_OFFSET_MILLIS = 0xFFFF;
+
+    /**
+     * Frame carries every sample received since the previous frame.
+     */
+    public static final byte MODE_FULL = 0;
+
+    /**
+     * Frame only carries the most recent value of each changed metric.
+     */
+    public static final byte MODE_LATEST = 1;
+
+    private TelemetryFrame() {
+    }
+
+    /**
+     * Writes a frame header at the start of the buffer.
+     *
+     * @param buf      Buffer to write into, positioned at the start of the frame.
+     * @param mode     {@link #MODE_FULL} or {@link #MODE_LATEST}.
+     * @param session  ID of the uplink session.
+     * @param seq      Sequence number of the frame within the session.
+     * @param baseTime Epoch millis that sample offsets are relative to.
+     */
+    public static void writeHeader(ByteBuffer buf, byte mode, int session, int seq, long baseTime) {
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(DATA_MAGIC);
+        buf.put(VERSION);
+        buf.put(mode);
+        buf.putShort((short) 0);
+        buf.putInt(session);
+        buf.putInt(seq);
+        buf.putLong(baseTime);
+    }
+
+    /**
+     * Appends a sample to a frame.
+     *
+     * @param buf    Buffer positioned after the last written sample.
+     * @param id     ID of the metric.
+     * @param offset Milliseconds since the frame's base time.
+     * @param value  Value of the metric.
+     */
+    public static void writeSample(ByteBuffer buf, int id, int offset, int value) {
+        buf.putShort((short) id);
+        buf.putShort((short) offset);
+        buf.putInt(value);
+    }
+
+    /**
+     * Patches the sample count into a frame header.
+     *
+     * @param buf   Buffer holding the frame at index 0.
+     * @param count Number of samples written.
+     */
+    public static void writeCount(ByteBuffer buf, int count) {
+        buf.putShort(6, (short) count);
+    }
+
+    /**
+     * Writes an acknowledgement.
+     *
+     * @param buf      Buffer to write into.
+     * @param seq      Highest sequence number received in the current session.
+     * @param received Number of frames received in the current session.
+     */
+    public static void writeAck(ByteBuffer buf, int seq, int received) {
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(ACK_MAGIC);
+        buf.putInt(seq);
+        buf.putInt(received);
+    }
+
+    /**
+     * Decodes a data frame.
+     *
+     * @param buf     Buffer holding exactly one frame.
+     * @param visitor Visitor receiving the header and each sample.
+     * @return True if the frame was valid, false otherwise.
+     */
+    public static boolean read(ByteBuffer buf, Visitor visitor) {
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != DATA_MAGIC || buf.get() != VERSION) {
+            return false;
+        }
+        byte mode = buf.get();
+        int count = buf.getShort() & 0xFFFF;
+        int session = buf.getInt();
+        int seq = buf.getInt();
+        long baseTime = buf.getLong();
+        if (count > MAX_SAMPLES || buf.remaining() < count * SAMPLE_BYTES) {
+            return false;
+        }
+        visitor.onFrame(mode, session, seq, baseTime, count);
+        for (int i = 0; i < count; i++) {
+            int id = buf.getShort() & 0xFFFF;
+            int offset = buf.getShort() & 0xFFFF;
+            visitor.onSample(id, baseTime + offset, buf.getInt());
+        }
+        return true;
+    }
+
+    /**
+     * Callback for {@link #read(ByteBuffer, Visitor)}.
+     */
+    public interface Visitor {
+        void onFrame(byte mode, int session, int seq, long baseTime, int count);
+
+        void onSample(int id, long timestamp, int value);
+    }
+}
@@ -0,0 +1,337 @@
+package com.iit.dashboard2022.telemetry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams decoded metrics to a pit receiver over UDP.
+ * <p>
+ * {@link #offer(int, int, long)} is called from the ECU thread and never blocks: samples go into a
+ * fixed size single-producer ring and a latest-value table. A sender thread drains them into
+ * {@link TelemetryFrame}s. While the receiver acknowledges frames with little loss every sample is
+ * sent, otherwise the uplink falls back to sending only the latest value of each metric at a
+ * slower rate until the link recovers.
+ */
+@Slf4j
+public class TelemetryUplink {
+    private static final int RING_CAPACITY = 1 << 13;
+    private static final int RING_MASK = RING_CAPACITY - 1;
+    private static final int MAX_ID = 256;
+
+    private static final long MIN_INTERVAL_MS = 20;
+    private static final long MAX_INTERVAL_MS = 1000;
+    private static final long ACK_TIMEOUT_MS = 2000;
+    private static final float LOSS_DEGRADE = 0.2f;
+    private static final float LOSS_RECOVER = 0.05f;
+
+    private final long[] ringTimes = new long[RING_CAPACITY];
+    private final int[] ringIds = new int[RING_CAPACITY];
+    private final int[] ringValues = new int[RING_CAPACITY];
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicIntegerArray latestValues = new AtomicIntegerArray(MAX_ID);
+    private final AtomicIntegerArray latestDirty = new AtomicIntegerArray(MAX_ID);
+    private final long[] latestTimes = new long[MAX_ID];
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+
+    private volatile boolean running = false;
+    private volatile byte mode = TelemetryFrame.MODE_LATEST;
+    private Sender sender;
+    /**
+     * Thread of the last stopped run, which may still be finishing a frame.
+     */
+    private Thread stoppedThread;
+
+    /**
+     * Queues a sample for the uplink. Safe to call from the ECU thread only.
+     *
+     * @param id        ID of the metric.
+     * @param value     Value of the metric.
+     * @param timestamp Epoch millis the value was received.
+     */
+    public void offer(int id, int value, long timestamp) {
+        if (!running) {
+            return;
+        }
+        if (id >= 0 && id < MAX_ID) {
+            latestTimes[id] = timestamp;
+            latestValues.set(id, value);
+            latestDirty.lazySet(id, 1);
+        }
+        long h = head.get();
+        if (h - tail.get() >= RING_CAPACITY) {
+            dropped.incrementAndGet();
+            return;
+        }
+        int i = (int) (h & RING_MASK);
+        ringTimes[i] = timestamp;
+        ringIds[i] = id;
+        ringValues[i] = value;
+        head.lazySet(h + 1);
+    }
+
+    /**
+     * Starts streaming to the given receiver.
+     *
+     * @param host Host name or address of the receiver. Broadcast addresses are allowed.
+     * @param port UDP port of the receiver.
+     */
+    public synchronized void start(String host, int port) {
+        if (running) {
+            return;
+        }
+        running = true;
+        mode = TelemetryFrame.MODE_LATEST;
+        Sender starting = new Sender();
+        Thread previous = stoppedThread;
+        starting.thread = new Thread(() -> run(starting, previous, host, port));
+        starting.thread.setDaemon(true);
+        starting.thread.setName("Telemetry-Uplink");
+        sender = starting;
+        starting.thread.start();
+        log.info("Telemetry uplink started: {}:{}", host, port);
+    }
+
+    /**
+     * Stops streaming without waiting for the sender, so it can be called from the UI thread. The
+     * socket is closed to wake the sender from a blocking receive. The sender of a following
+     * {@link #start(String, int)} waits for this one to end before draining the ring.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Sender stopping = sender;
+        sender = null;
+        stopping.active = false;
+        DatagramSocket socket = stopping.socket;
+        if (socket != null) {
+            socket.close();
+        }
+        stopping.thread.interrupt();
+        stoppedThread = stopping.thread;
+        log.info("Telemetry uplink stopped");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets whether every sample is currently being streamed.
+     *
+     * @return True if streaming every sample, false if only streaming latest values.
+     */
+    public boolean isFullRate() {
+        return mode == TelemetryFrame.MODE_FULL;
+    }
+
+    /**
+     * Gets the number of samples discarded because the link could not keep up.
+     *
+     * @return Number of dropped samples.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the number of frames sent.
+     *
+     * @return Number of frames sent.
+     */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    private void run(Sender self, Thread previous, String host, int port) {
+        if (previous != null) {
+            // The ring has a single consumer, so the previous sender must be gone before draining it
+            try {
+                previous.join();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        if (!self.active) {
+            return;
+        }
+        tail.set(head.get());
+        ByteBuffer frame = ByteBuffer.allocate(TelemetryFrame.MAX_FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer ack = ByteBuffer.allocate(TelemetryFrame.ACK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        DatagramPacket ackPacket = new DatagramPacket(ack.array(), ack.capacity());
+        long interval = MAX_INTERVAL_MS;
+        long lastAck = System.currentTimeMillis();
+        int seq = 0;
+        int lastAckSeq = 0;
+        int lastAckReceived = 0;
+        mode = TelemetryFrame.MODE_LATEST;
+
+        try (DatagramSocket socket = new DatagramSocket()) {
+            self.socket = socket;
+            if (!self.active) {
+                return;
+            }
+            InetAddress address = InetAddress.getByName(host);
+            socket.setBroadcast(true);
+            DatagramPacket packet = new DatagramPacket(frame.array(), 0, address, port);
+            while (self.active) {
+                // Waiting on feedback doubles as the send interval
+                long deadline = System.currentTimeMillis() + interval;
+                long remaining;
+                while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                    socket.setSoTimeout((int) remaining);
+                    try {
+                        socket.receive(ackPacket);
+                    } catch (SocketTimeoutException e) {
+                        break;
+                    }
+                    ack.clear();
+                    if (ackPacket.getLength() < TelemetryFrame.ACK_BYTES || ack.getInt() != TelemetryFrame.ACK_MAGIC) {
+                        continue;
+                    }
+                    int ackSeq = ack.getInt();
+                    int ackReceived = ack.getInt();
+                    int expected = ackSeq - lastAckSeq;
+                    if (expected > 0) {
+                        float loss = 1f - Math.min(ackReceived - lastAckReceived, expected) / (float) expected;
+                        if (loss > LOSS_DEGRADE) {
+                            mode = TelemetryFrame.MODE_LATEST;
+                            interval = Math.min(interval * 2, MAX_INTERVAL_MS);
+                        } else if (loss < LOSS_RECOVER) {
+                            interval = Math.max(interval / 2, MIN_INTERVAL_MS);
+                            if (interval == MIN_INTERVAL_MS) {
+                                mode = TelemetryFrame.MODE_FULL;
+                            }
+                        }
+                    }
+                    lastAckSeq = ackSeq;
+                    lastAckReceived = ackReceived;
+                    lastAck = System.currentTimeMillis();
+                }
+
+                if (System.currentTimeMillis() - lastAck > ACK_TIMEOUT_MS) {
+                    mode = TelemetryFrame.MODE_LATEST;
+                    interval = MAX_INTERVAL_MS;
+                }
+                if (mode == TelemetryFrame.MODE_FULL && head.get() - tail.get() > RING_CAPACITY / 2) {
+                    mode = TelemetryFrame.MODE_LATEST;
+                }
+
+                try {
+                    seq = mode == TelemetryFrame.MODE_FULL ? sendFull(socket, packet, frame, self.session, seq) : sendLatest(socket, packet, frame, self.session, seq);
+                } catch (IOException e) {
+                    log.warn("Failed to send telemetry frame", e);
+                    mode = TelemetryFrame.MODE_LATEST;
+                    interval = MAX_INTERVAL_MS;
+                }
+            }
+        } catch (IOException e) {
+            // Closing the socket in stop() ends a blocking receive with an exception
+            if (self.active) {
+                log.error("Telemetry uplink failed", e);
+                failed(self);
+            }
+        }
+    }
+
+    private synchronized void failed(Sender self) {
+        if (sender == self) {
+            running = false;
+            sender = null;
+        }
+    }
+
+    private int sendFull(DatagramSocket socket, DatagramPacket packet, ByteBuffer frame, int session, int seq) throws IOException {
+        long t = tail.get();
+        long h = head.get();
+        if (t == h) {
+            // Nothing new, send a keep-alive so the receiver keeps acknowledging
+            frame.clear();
+            TelemetryFrame.writeHeader(frame, TelemetryFrame.MODE_FULL, session, seq, System.currentTimeMillis());
+            return send(socket, packet, frame, 0, seq);
+        }
+        while (t < h) {
+            int i = (int) (t & RING_MASK);
+            long baseTime = ringTimes[i];
+            frame.clear();
+            TelemetryFrame.writeHeader(frame, TelemetryFrame.MODE_FULL, session, seq, baseTime);
+            int count = 0;
+            while (t < h && count < TelemetryFrame.MAX_SAMPLES) {
+                i = (int) (t & RING_MASK);
+                long offset = ringTimes[i] - baseTime;
+                if (offset < 0 || offset > TelemetryFrame.MAX_OFFSET_MILLIS) {
+                    break;
+                }
+                TelemetryFrame.writeSample(frame, ringIds[i], (int) offset, ringValues[i]);
+                count++;
+                t++;
+            }
+            tail.lazySet(t);
+            seq = send(socket, packet, frame, count, seq);
+        }
+        return seq;
+    }
+
+    private int sendLatest(DatagramSocket socket, DatagramPacket packet, ByteBuffer frame, int session, int seq) throws IOException {
+        // Whatever is still queued is superseded by the latest values
+        long h = head.get();
+        dropped.addAndGet(h - tail.get());
+        tail.lazySet(h);
+
+        long baseTime = System.currentTimeMillis() - TelemetryFrame.MAX_OFFSET_MILLIS;
+        frame.clear();
+        TelemetryFrame.writeHeader(frame, TelemetryFrame.MODE_LATEST, session, seq, baseTime);
+        int count = 0;
+        for (int id = 0; id < MAX_ID; id++) {
+            if (latestDirty.getAndSet(id, 0) == 0) {
+                continue;
+            }
+            long offset = Math.max(0, Math.min(latestTimes[id] - baseTime, TelemetryFrame.MAX_OFFSET_MILLIS));
+            TelemetryFrame.writeSample(frame, id, (int) offset, latestValues.get(id));
+            if (++count == TelemetryFrame.MAX_SAMPLES) {
+                seq = send(socket, packet, frame, count, seq);
+                frame.clear();
+                TelemetryFrame.writeHeader(frame, TelemetryFrame.MODE_LATEST, session, seq, baseTime);
+                count = 0;
+            }
+        }
+        // An empty frame still acts as a keep-alive for link estimation
+        return send(socket, packet, frame, count, seq);
+    }
+
+    private int send(DatagramSocket socket, DatagramPacket packet, ByteBuffer frame, int count, int seq) throws IOException {
+        TelemetryFrame.writeCount(frame, count);
+        packet.setLength(frame.position());
+        socket.send(packet);
+        sent.incrementAndGet();
+        return seq + 1;
+    }
+
+    /**
+     * State of one run of the sender thread, so a stopped sender never sees a later start.
+     */
+    private static final class Sender {
+        /**
+         * Tells the receiver that sequence numbers restarted.
+         */
+        private final int session = ThreadLocalRandom.current().nextInt();
+        private volatile boolean active = true;
+        private volatile DatagramSocket socket;
+        private Thread thread;
+    }
+}
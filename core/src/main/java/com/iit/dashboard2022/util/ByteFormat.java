@@ -0,0 +1,35 @@
+package com.iit.dashboard2022.util;
+
+import java.text.CharacterIterator;
+import java.text.StringCharacterIterator;
+import java.util.Locale;
+
+/**
+ * Formatting of byte counts.
+ */
+public final class ByteFormat {
+
+    private ByteFormat() {
+    }
+
+    /**
+     * Converts amount of bytes to human-readable format
+     *
+     * @param bytes Size of file
+     * @return Size of file formatted as a String
+     */
+    public static String humanReadable(long bytes) {
+        long absB = bytes == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(bytes);
+        if (absB < 1024) {
+            return bytes + " B";
+        }
+        long value = absB;
+        CharacterIterator ci = new StringCharacterIterator("KMGTPE");
+        for (int i = 40; i >= 0 && absB > 0xfffccccccccccccL >> i; i -= 10) {
+            value >>= 10;
+            ci.next();
+        }
+        value *= Long.signum(bytes);
+        return String.format(Locale.ENGLISH, "%.1f %ciB", value / 1024.0, ci.current());
+    }
+}
@@ -0,0 +1,170 @@
+package com.iit.dashboard2022.receiver;
+
+import com.iit.dashboard2022.telemetry.TelemetryFrame;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reference pit receiver for the dashboard's telemetry uplink.
+ * <p>
+ * Listens for {@link TelemetryFrame}s, acknowledges them so the uplink can adapt its rate,
+ * prints the latest value of every metric once a second and optionally appends every sample
+ * to a file in the same "time id value" format as the dashboard's statistics log.
+ * <p>
+ * Acknowledgements count frames of the current uplink session only. The count restarts when the
+ * frame header carries a new session, or when the sequence number falls far behind the highest
+ * seen, so an uplink that was restarted is not compared against the previous run's numbers.
+ * <p>
+ * Usage: {@code PitReceiver [port] [output file]}
+ */
+public class PitReceiver implements TelemetryFrame.Visitor {
+    private static final long ACK_INTERVAL_MS = 250;
+    private static final long PRINT_INTERVAL_MS = 1000;
+    /**
+     * How far a sequence number may fall behind the highest seen before it is taken as a restart
+     * rather than a late frame.
+     */
+    private static final int REORDER_WINDOW = 1024;
+
+    private final Map<Integer, long[]> latest = new TreeMap<>();
+    private final Writer output;
+    private boolean hasSession = false;
+    private int session;
+    private int highestSeq = -1;
+    private int received = 0;
+    private int samples = 0;
+    private byte mode = TelemetryFrame.MODE_LATEST;
+
+    public PitReceiver(Writer output) {
+        this.output = output;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5757;
+        Writer output = args.length > 1 ? new BufferedWriter(new FileWriter(args[1], true)) : null;
+        PitReceiver receiver = new PitReceiver(output);
+        try {
+            receiver.listen(port);
+        } finally {
+            if (output != null) {
+                output.close();
+            }
+        }
+    }
+
+    /**
+     * Receives frames until the process is terminated.
+     *
+     * @param port UDP port to listen on.
+     * @throws IOException If the socket cannot be opened.
+     */
+    public void listen(int port) throws IOException {
+        byte[] data = new byte[TelemetryFrame.MAX_FRAME_BYTES];
+        DatagramPacket packet = new DatagramPacket(data, data.length);
+        ByteBuffer ack = ByteBuffer.allocate(TelemetryFrame.ACK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        DatagramPacket ackPacket = new DatagramPacket(ack.array(), ack.capacity());
+        long lastAck = 0;
+        long lastPrint = System.currentTimeMillis();
+
+        try (DatagramSocket socket = new DatagramSocket(port)) {
+            socket.setSoTimeout((int) ACK_INTERVAL_MS);
+            System.out.println("Listening for telemetry on port " + port);
+            while (true) {
+                try {
+                    packet.setLength(data.length);
+                    socket.receive(packet);
+                    if (TelemetryFrame.read(ByteBuffer.wrap(data, 0, packet.getLength()), this)) {
+                        long now = System.currentTimeMillis();
+                        if (now - lastAck >= ACK_INTERVAL_MS) {
+                            ack.clear();
+                            TelemetryFrame.writeAck(ack, highestSeq, received);
+                            ackPacket.setSocketAddress(packet.getSocketAddress());
+                            socket.send(ackPacket);
+                            lastAck = now;
+                        }
+                    }
+                } catch (SocketTimeoutException ignored) {
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastPrint >= PRINT_INTERVAL_MS) {
+                    print(System.out, now - lastPrint);
+                    lastPrint = now;
+                    if (output != null) {
+                        output.flush();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onFrame(byte mode, int session, int seq, long baseTime, int count) {
+        if (!hasSession || session != this.session || seq < highestSeq - REORDER_WINDOW) {
+            hasSession = true;
+            this.session = session;
+            highestSeq = -1;
+            received = 0;
+        }
+        this.mode = mode;
+        highestSeq = Math.max(highestSeq, seq);
+        received++;
+    }
+
+    /**
+     * Gets the highest sequence number received in the current session, as acknowledged.
+     *
+     * @return Sequence number, or -1 before any frame.
+     */
+    public int getHighestSeq() {
+        return highestSeq;
+    }
+
+    /**
+     * Gets the number of frames received in the current session, as acknowledged.
+     *
+     * @return Number of frames.
+     */
+    public int getReceived() {
+        return received;
+    }
+
+    @Override
+    public void onSample(int id, long timestamp, int value) {
+        samples++;
+        long[] entry = latest.get(id);
+        if (entry == null) {
+            entry = new long[2];
+            latest.put(id, entry);
+        }
+        entry[0] = timestamp;
+        entry[1] = value;
+        if (output != null) {
+            try {
+                output.write(String.format(Locale.ENGLISH, "%d %d %d\n", timestamp, id, value));
+            } catch (IOException e) {
+                System.err.println("Failed to write sample: " + e);
+            }
+        }
+    }
+
+    private void print(PrintStream out, long elapsed) {
+        out.printf(Locale.ENGLISH, "%n[%s] frames: %d, samples/s: %.0f%n",
+                mode == TelemetryFrame.MODE_FULL ? "FULL" : "LATEST", received, samples * 1000.0 / elapsed);
+        samples = 0;
+        for (Map.Entry<Integer, long[]> entry : latest.entrySet()) {
+            out.printf(Locale.ENGLISH, "  %4d = %-12d (%d ms ago)%n", entry.getKey(), entry.getValue()[1], System.currentTimeMillis() - entry.getValue()[0]);
+        }
+    }
+}
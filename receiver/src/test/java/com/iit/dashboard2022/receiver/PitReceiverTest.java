@@ -0,0 +1,66 @@
+package com.iit.dashboard2022.receiver;
+
+import com.iit.dashboard2022.telemetry.TelemetryFrame;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PitReceiverTest {
+
+    private static void receive(PitReceiver receiver, int session, int seq) {
+        ByteBuffer frame = ByteBuffer.allocate(TelemetryFrame.MAX_FRAME_BYTES);
+        TelemetryFrame.writeHeader(frame, TelemetryFrame.MODE_FULL, session, seq, System.currentTimeMillis());
+        TelemetryFrame.writeCount(frame, 0);
+        frame.flip();
+        assertTrue(TelemetryFrame.read(frame, receiver));
+    }
+
+    @Test
+    public void countsFramesOfOneSession() {
+        PitReceiver receiver = new PitReceiver(null);
+        for (int seq = 0; seq < 100; seq++) {
+            receive(receiver, 1, seq);
+        }
+        assertEquals(99, receiver.getHighestSeq());
+        assertEquals(100, receiver.getReceived());
+    }
+
+    @Test
+    public void restartsCountsWhenTheUplinkRestarts() {
+        PitReceiver receiver = new PitReceiver(null);
+        for (int seq = 0; seq < 5000; seq++) {
+            receive(receiver, 1, seq);
+        }
+        // The uplink was switched off and on: a new session starting again from zero
+        for (int seq = 0; seq < 10; seq++) {
+            receive(receiver, 2, seq);
+        }
+        assertEquals(9, receiver.getHighestSeq());
+        assertEquals(10, receiver.getReceived());
+    }
+
+    @Test
+    public void restartsCountsWhenTheSequenceFallsFarBehind() {
+        PitReceiver receiver = new PitReceiver(null);
+        for (int seq = 0; seq < 5000; seq++) {
+            receive(receiver, 1, seq);
+        }
+        receive(receiver, 1, 0);
+        assertEquals(0, receiver.getHighestSeq());
+        assertEquals(1, receiver.getReceived());
+    }
+
+    @Test
+    public void keepsCountsForLateFrames() {
+        PitReceiver receiver = new PitReceiver(null);
+        for (int seq = 0; seq < 100; seq++) {
+            receive(receiver, 1, seq);
+        }
+        receive(receiver, 1, 90);
+        assertEquals(99, receiver.getHighestSeq());
+        assertEquals(101, receiver.getReceived());
+    }
+}